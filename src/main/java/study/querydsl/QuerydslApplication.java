@@ -5,6 +5,7 @@ import jakarta.persistence.EntityManager;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import study.querydsl.repository.support.TimeoutJPAQueryFactory;
 
 @SpringBootApplication
 public class QuerydslApplication {
@@ -12,10 +13,10 @@ public class QuerydslApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(QuerydslApplication.class, args);
 	}
-	//JPA QueryFactory 빈으로 등록
+	//JPA QueryFactory 빈으로 등록 (요청별 query timeout/취소 적용)
 	@Bean
 	JPAQueryFactory jpaQueryFactory(EntityManager em) {
-		return new JPAQueryFactory(em);
+		return new TimeoutJPAQueryFactory(em);
 	}
 
 }
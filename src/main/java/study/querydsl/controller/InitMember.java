@@ -4,7 +4,10 @@ import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
@@ -17,10 +20,26 @@ import study.querydsl.entity.Team;
 public class InitMember {
 
     private final InitMemberService initMemberService;
+
+    //fast 프로파일 - 기동을 막지 않도록 준비 완료 후 백그라운드에서 초기화
+    @Value("${member.init.background:false}")
+    private boolean background;
+
     //profile local 설정 해놔서 @PostConstruct 실행되고
     @PostConstruct
     public void init() {
-        initMemberService.init();
+        if (!background) {
+            initMemberService.init();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initInBackground() {
+        if (background) {
+            Thread thread = new Thread(initMemberService::init, "init-member");
+            thread.setDaemon(true);
+            thread.start();
+        }
     }
 
     //-> DB에 한번에 데이터를 다 넣고 시작함
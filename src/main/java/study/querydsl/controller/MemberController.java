@@ -1,37 +1,198 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.repository.MemberJpaRepository;
-import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.MemberField;
+import study.querydsl.repository.MemberReportRepository;
+import study.querydsl.repository.MemberUsernameIndex;
+import study.querydsl.repository.MemberWriteBehindBuffer;
+import study.querydsl.repository.plan.MemberSearchPlan;
+import study.querydsl.repository.plan.MemberSearchPlanner;
+import study.querydsl.repository.snapshot.MemberSnapshotExporter;
+import study.querydsl.repository.support.QueryScope;
+import study.querydsl.repository.support.QueryScopeRegistry;
+import study.querydsl.service.MemberQueryService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
-    private final MemberJpaRepository memberJpaRepository;
-    private final MemberRepositoryCustom memberRepository;
+    private final MemberQueryService memberQueryService;
+    private final MemberWriteBehindBuffer writeBehindBuffer;
+    private final MemberReportRepository memberReportRepository;
+    private final ObjectMapper objectMapper;
+    private final QueryScopeRegistry queryScopes;
+    private final MemberUsernameIndex usernameIndex;
+    private final MemberSearchPlanner searchPlanner;
+    private final ObjectProvider<MemberWarmUpRunner> warmUpRunner;
+    private final MemberSnapshotExporter snapshotExporter;
+
+    @Value("${member.snapshot.dir:${java.io.tmpdir}/member-snapshot}")
+    private Path snapshotDir;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+        return memberQueryService.search(condition);
     }
 
 
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+        return memberQueryService.searchPageSimple(condition, pageable);
     }
     @GetMapping("/v3/members")
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+        return memberQueryService.searchPageComplex(condition, pageable);
+    }
+
+    //fields=memberId,username 처럼 필요한 필드만 - 요청한 컬럼만 조회하고 응답에도 그 필드만
+    @GetMapping(value = "/v1/members", params = "fields")
+    public List<Map<String, Object>> searchMemberV1Fields(MemberSearchCondition condition, @RequestParam String fields) {
+        return memberQueryService.searchFields(condition, MemberField.parse(fields));
+    }
+
+    @GetMapping(value = {"/v2/members", "/v3/members"}, params = "fields")
+    public Page<Map<String, Object>> searchMemberPageFields(MemberSearchCondition condition, @RequestParam String fields,
+                                                             Pageable pageable) {
+        return memberQueryService.searchPageFields(condition, MemberField.parse(fields), pageable);
+    }
+
+    //BFF 위젯용 - 조건 목록을 한 번에 보내고 입력 순서대로 조건별 결과 목록을 받음 (같은 조건은 한 번만 조회)
+    @PostMapping("/members/search/batch")
+    public List<List<MemberTeamDto>> searchMemberBatch(@RequestBody List<MemberSearchCondition> conditions) {
+        return memberQueryService.searchAll(conditions);
+    }
+
+    //통계 기반 실행 계획으로 검색 (in-memory / keyset / team 출발 / count 생략)
+    @GetMapping("/members/search")
+    public Page<MemberTeamDto> searchMemberPlanned(MemberSearchCondition condition, Pageable pageable) {
+        return memberQueryService.searchPage(condition, pageable);
+    }
+
+    //위 검색이 어떤 전략을 왜 고르는지 (실행은 하지 않음)
+    @GetMapping("/members/search/explain")
+    public MemberSearchPlan explainMemberSearch(MemberSearchCondition condition, Pageable pageable) {
+        return searchPlanner.explain(condition, pageable);
+    }
+
+    //대용량 - 조건이 없으면 전체 개수를 추정치로 ("약 120만 건")
+    @GetMapping("/members/approximate")
+    public Page<MemberTeamDto> searchMemberApproximate(MemberSearchCondition condition, Pageable pageable) {
+        return memberQueryService.searchPageApproximate(condition, pageable);
+    }
+
+    //무한 스크롤 - 전체 카운트 없이 hasNext만 내려줌
+    @GetMapping("/members/slice")
+    public Slice<MemberTeamDto> searchMemberSlice(MemberSearchCondition condition, Pageable pageable) {
+        return memberQueryService.searchSlice(condition, pageable);
     }
-}
 
+    //리포트 - id 범위별 병렬 조회 결과를 한 줄에 한 건씩(NDJSON) 스트리밍
+    //클라이언트 연결이 끊겨서 쓰기가 실패하면 진행 중인 범위 조회들도 취소
+    @QueryTimeout(millis = 60_000)
+    @GetMapping(value = "/members/report", produces = "application/x-ndjson")
+    public StreamingResponseBody reportMembers(MemberSearchCondition condition,
+                                               @RequestParam(defaultValue = "true") boolean ordered) {
+        QueryScope scope = QueryScope.current();
+        return out -> {
+            if (scope != null) {
+                scope.attach();
+            }
+            try {
+                memberReportRepository.scan(condition, ordered, chunk -> {
+                    try {
+                        for (MemberTeamDto dto : chunk) {
+                            out.write(objectMapper.writeValueAsBytes(dto));
+                            out.write('\n');
+                        }
+                        out.flush();
+                    } catch (IOException e) {
+                        if (scope != null) {
+                            queryScopes.cancel(scope);
+                        }
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                QueryScope.detach();
+            }
+        };
+    }
+
+    //분석용 - 전체 회원/팀을 컬럼 파일(MemberSnapshotFormat)로 내려받음, MemberSnapshotReader 로 조건 조회
+    @GetMapping(value = "/members/snapshot", produces = "application/octet-stream")
+    public ResponseEntity<Resource> exportSnapshot() throws IOException {
+        MemberSnapshotExporter.ExportSummary summary = snapshotExporter.export(snapshotDir.resolve("members.msnp"));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members.msnp\"")
+                .body(new FileSystemResource(summary.file()));
+    }
+
+    //가입/가져오기 중복 확인 - 블룸 필터가 없다고 하면 DB 조회 없이 false
+    @GetMapping("/members/exists")
+    public boolean existsByUsername(@RequestParam String username) {
+        return usernameIndex.existsByUsername(username);
+    }
+
+    //기동 시 워밍업 결과 - 조건 조합별 첫 호출 vs 정상 상태 시간 (워밍업을 끄면 빈 목록)
+    @GetMapping("/members/warm-up")
+    public List<MemberWarmUpRunner.ShapeReport> warmUpReport() {
+        MemberWarmUpRunner runner = warmUpRunner.getIfAvailable();
+        return runner == null ? List.of() : runner.report();
+    }
+
+    //나이/팀 변경 - write-behind 버퍼에 모아서 batch update 로 반영
+    //반영이 끝났으면(durable) 200, 아직 버퍼에 있으면 202
+    @PatchMapping("/members/{memberId}/age")
+    public ResponseEntity<Void> updateAge(@PathVariable Long memberId, @RequestParam int age) {
+        return writeResponse(writeBehindBuffer.updateAge(memberId, age));
+    }
+
+    @PatchMapping("/members/{memberId}/team")
+    public ResponseEntity<Void> changeTeam(@PathVariable Long memberId, @RequestParam Long teamId) {
+        return writeResponse(writeBehindBuffer.changeTeam(memberId, teamId));
+    }
+
+    private static ResponseEntity<Void> writeResponse(CompletableFuture<Void> written) {
+        if (written.isDone()) {
+            written.join(); //실패면 예외 -> 500
+            return ResponseEntity.ok().build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    //진행 중인 요청(X-Request-Id)의 쿼리 취소 - 게이트웨이가 클라이언트 연결 종료를 감지했을 때 호출
+    @DeleteMapping("/members/queries/{requestId}")
+    public ResponseEntity<Void> cancelQuery(@PathVariable String requestId) {
+        return queryScopes.cancel(requestId)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.notFound().build();
+    }
+}
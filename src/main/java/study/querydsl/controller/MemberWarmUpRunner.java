@@ -0,0 +1,187 @@
+package study.querydsl.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.cache.MemberSearchCache;
+import study.querydsl.repository.plan.MemberStatistics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+//배포 직후 첫 요청들이 느린 문제 (JPQL 파싱/쿼리 플랜 캐시, QueryDSL 템플릿, JIT) -> 준비 완료 전에 미리 실행
+//- ApplicationRunner 는 ApplicationReadyEvent 전에 끝나므로 그동안 readiness 는 REFUSING_TRAFFIC
+//- 검색 실행 계획이 실제 통계로 정해지도록 MemberStatistics 를 먼저 만듦 (ApplicationReadyEvent 에서는 그대로 사용)
+//- /v1~/v3, /members/search 가 쓰는 검색을 대표 조건 조합으로 duration-ms 동안 반복, 읽기 전용 트랜잭션 + 롤백
+//  검색 결과 캐시는 거치지 않음 (두 번째 호출부터 캐시 히트 시간이 되므로)
+//- 조건 조합별 첫 호출 시간과 후반부 중앙값(정상 상태)을 로그와 /members/warm-up 으로 제공
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.warm-up.enabled", havingValue = "true")
+public class MemberWarmUpRunner implements ApplicationRunner {
+
+    private final MemberRepositoryCustom memberRepository;
+    private final MemberJpaRepository memberJpaRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MemberSearchCache searchCache;
+    private final MemberStatistics statistics;
+    private final long durationMillis;
+
+    private volatile List<ShapeReport> report = List.of();
+
+    public MemberWarmUpRunner(MemberRepositoryCustom memberRepository, MemberJpaRepository memberJpaRepository,
+                              PlatformTransactionManager transactionManager,
+                              MemberSearchCache searchCache, MemberStatistics statistics,
+                              @Value("${member.warm-up.duration-ms:5000}") long durationMillis) {
+        this.memberRepository = memberRepository;
+        this.memberJpaRepository = memberJpaRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.searchCache = searchCache;
+        this.statistics = statistics;
+        this.durationMillis = durationMillis;
+    }
+
+    //조건 조합 하나의 결과 - steadyMillis 는 후반 절반 호출의 중앙값
+    public record ShapeReport(String shape, int calls, double firstMillis, double steadyMillis) {
+    }
+
+    private record Shape(String name, Consumer<MemberSearchCondition> call, MemberSearchCondition condition) {
+    }
+
+    public List<ShapeReport> report() {
+        return report;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        statistics.ensureBuilt();
+        List<Shape> shapes = shapes(sample());
+        Map<String, List<Long>> samples = new LinkedHashMap<>();
+        shapes.forEach(shape -> samples.put(shape.name(), new ArrayList<>()));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        do {
+            for (Shape shape : shapes) {
+                long start = System.nanoTime();
+                try {
+                    readOnly(() -> shape.call().accept(shape.condition()));
+                } catch (RuntimeException e) {
+                    //워밍업 실패로 기동이 막히지 않도록
+                    log.warn("warm-up {} failed: {}", shape.name(), e.toString());
+                }
+                samples.get(shape.name()).add(System.nanoTime() - start);
+            }
+        } while (System.nanoTime() < deadline);
+
+        report = samples.entrySet().stream()
+                .map(entry -> summarize(entry.getKey(), entry.getValue()))
+                .toList();
+        log.info("warm-up finished: {} shapes, {} ms", report.size(), durationMillis);
+        for (ShapeReport shape : report) {
+            log.info("  {} calls first={}ms steady={}ms | {}", shape.calls(),
+                    String.format("%.2f", shape.firstMillis()), String.format("%.2f", shape.steadyMillis()),
+                    shape.shape());
+        }
+    }
+
+    //실제 데이터에서 조건 값 하나를 가져옴 (없으면 샘플 데이터 기준 값)
+    private MemberTeamDto sample() {
+        MemberTeamDto sample = readOnlyResult(() -> memberRepository
+                .searchSlice(new MemberSearchCondition(), PageRequest.of(0, 1))
+                .stream()
+                .findFirst()
+                .orElse(null));
+        return sample != null ? sample : new MemberTeamDto(0L, "member1", 20, 0L, "teamA");
+    }
+
+    private List<Shape> shapes(MemberTeamDto sample) {
+        String teamName = sample.getTeamName() != null ? sample.getTeamName() : "teamA";
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        conditions.add(condition(null, null, null, null));
+        conditions.add(condition(sample.getUsername(), null, null, null));
+        conditions.add(condition(null, teamName, null, null));
+        conditions.add(condition(null, null, sample.getAge(), null));
+        conditions.add(condition(null, null, sample.getAge(), sample.getAge() + 20));
+        conditions.add(condition(null, teamName, sample.getAge(), sample.getAge() + 20));
+        conditions.add(condition(sample.getUsername(), teamName, sample.getAge(), sample.getAge() + 20));
+
+        Pageable first = PageRequest.of(0, 20);
+        Pageable sorted = PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "age"));
+        List<Shape> shapes = new ArrayList<>();
+        for (MemberSearchCondition condition : conditions) {
+            String name = describe(condition);
+            shapes.add(new Shape("v1 " + name, memberJpaRepository::search, condition));
+            shapes.add(new Shape("v2 " + name, c -> memberRepository.searchPageSimple(c, first), condition));
+            shapes.add(new Shape("v2 sort " + name, c -> memberRepository.searchPageSimple(c, sorted), condition));
+            shapes.add(new Shape("v3 " + name, c -> memberRepository.searchPageComplex(c, first), condition));
+            shapes.add(new Shape("search " + name, c -> memberRepository.searchPage(c, first), condition));
+        }
+        return shapes;
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+
+    private static String describe(MemberSearchCondition condition) {
+        List<String> fields = new ArrayList<>();
+        if (condition.getUsername() != null) {
+            fields.add("username");
+        }
+        if (condition.getTeamName() != null) {
+            fields.add("teamName");
+        }
+        if (condition.getAgeGoe() != null) {
+            fields.add("ageGoe");
+        }
+        if (condition.getAgeLoe() != null) {
+            fields.add("ageLoe");
+        }
+        return fields.isEmpty() ? "(no condition)" : String.join("+", fields);
+    }
+
+    private static ShapeReport summarize(String shape, List<Long> nanos) {
+        List<Long> steady = new ArrayList<>(nanos.subList(nanos.size() / 2, nanos.size()));
+        steady.sort(null);
+        return new ShapeReport(shape, nanos.size(), nanos.get(0) / 1_000_000.0,
+                steady.get(steady.size() / 2) / 1_000_000.0);
+    }
+
+    //읽기 전용 + 항상 롤백, 검색 결과 캐시 우회
+    private <T> T readOnlyResult(Supplier<T> work) {
+        return readOnlyTransaction.execute(status -> {
+            status.setRollbackOnly();
+            return work.get();
+        });
+    }
+
+    private void readOnly(Runnable work) {
+        searchCache.bypass(() -> readOnlyTransaction.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            work.run();
+        }));
+    }
+}
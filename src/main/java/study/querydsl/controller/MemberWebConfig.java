@@ -0,0 +1,24 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class MemberWebConfig implements WebMvcConfigurer {
+
+    private final QueryTimeoutInterceptor queryTimeoutInterceptor;
+    private final QueryBudgetInterceptor queryBudgetInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(queryTimeoutInterceptor)
+                .addPathPatterns("/v1/**", "/v2/**", "/v3/**", "/members/**")
+                .excludePathPatterns("/members/queries/**"); //취소 API 는 대상 요청의 id 를 그대로 쓰므로 제외
+        registry.addInterceptor(queryBudgetInterceptor)
+                .addPathPatterns("/v1/**", "/v2/**", "/v3/**", "/members/**")
+                .excludePathPatterns("/members/report", "/members/snapshot", "/members/queries/**"); //리포트/스냅샷은 전체 스캔이 목적
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import study.querydsl.repository.support.QueryBudget;
+
+import java.util.List;
+
+//HEADER 모드 - 응답 본문을 쓰기 직전(헤더를 보낼 수 있을 때)에 요청의 SQL 집계값을 헤더로
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class QueryBudgetHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    private final QueryBudgetInterceptor queryBudgetInterceptor;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return queryBudgetInterceptor.mode() == QueryBudget.Mode.HEADER;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryBudget budget = QueryBudget.current();
+        if (budget != null) {
+            response.getHeaders().set("X-Query-Count", String.valueOf(budget.statements()));
+            response.getHeaders().set("X-Query-Rows", String.valueOf(budget.rows()));
+            response.getHeaders().set("X-Query-Time-Ms", String.valueOf(budget.dbTimeMillis()));
+            List<String> exceeded = budget.exceeded();
+            if (!exceeded.isEmpty()) {
+                response.getHeaders().set("X-Query-Budget-Exceeded", String.join(", ", exceeded));
+            }
+        }
+        return body;
+    }
+}
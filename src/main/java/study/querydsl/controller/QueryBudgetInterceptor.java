@@ -0,0 +1,53 @@
+package study.querydsl.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import study.querydsl.repository.support.QueryBudget;
+
+import java.util.List;
+
+//요청마다 SQL 수/읽은 행 수/DB 시간 집계 후 한도 확인
+//- LOG: 넘으면 경고 로그, HEADER: 응답 헤더로 집계값 (QueryBudgetHeaderAdvice), FAIL: 넘는 순간 예외
+@Slf4j
+@Component
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+    private static final String BUDGET_ATTRIBUTE = QueryBudget.class.getName();
+
+    private final QueryBudget.Mode mode;
+    private final QueryBudget.Limits limits;
+
+    public QueryBudgetInterceptor(@Value("${member.query-budget.mode:LOG}") QueryBudget.Mode mode,
+                                  @Value("${member.query-budget.max-statements:10}") long maxStatements,
+                                  @Value("${member.query-budget.max-rows:1000}") long maxRows,
+                                  @Value("${member.query-budget.max-db-time-ms:1000}") long maxDbTimeMillis) {
+        this.mode = mode;
+        this.limits = new QueryBudget.Limits(maxStatements, maxRows, maxDbTimeMillis);
+    }
+
+    public QueryBudget.Mode mode() {
+        return mode;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(BUDGET_ATTRIBUTE, QueryBudget.open(limits, mode));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(BUDGET_ATTRIBUTE) instanceof QueryBudget budget)) {
+            return;
+        }
+        budget.close();
+        List<String> exceeded = budget.exceeded();
+        if (mode == QueryBudget.Mode.LOG && !exceeded.isEmpty()) {
+            log.warn("query budget exceeded {} {}: {}", request.getMethod(), request.getRequestURI(), exceeded);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package study.querydsl.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//엔드포인트별 조회 제한 시간 - 없으면 member.query.timeout-ms
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryTimeout {
+
+    long millis();
+}
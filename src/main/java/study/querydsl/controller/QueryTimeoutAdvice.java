@@ -0,0 +1,23 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import study.querydsl.repository.support.QueryScopeRegistry;
+
+//제한 시간 초과 (DB 가 Statement timeout 으로 중단했거나 마감이 지나서 쿼리를 보내지 않음) -> 503
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class QueryTimeoutAdvice {
+
+    private final QueryScopeRegistry queryScopes;
+
+    @ExceptionHandler({QueryTimeoutException.class, jakarta.persistence.QueryTimeoutException.class})
+    public ResponseEntity<String> queryTimeout(RuntimeException e) {
+        queryScopes.timedOut();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("query timed out");
+    }
+}
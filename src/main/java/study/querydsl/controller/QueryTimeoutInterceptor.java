@@ -0,0 +1,65 @@
+package study.querydsl.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import study.querydsl.repository.support.QueryScope;
+import study.querydsl.repository.support.QueryScopeRegistry;
+
+import java.util.UUID;
+
+//요청마다 QueryScope 를 열어서 그 요청의 쿼리에 제한 시간 적용
+//요청 id 는 X-Request-Id 헤더(없으면 생성)로 응답에도 내려줌 -> DELETE /members/queries/{requestId} 로 취소
+@Component
+@RequiredArgsConstructor
+public class QueryTimeoutInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    private static final String SCOPE_ATTRIBUTE = QueryScope.class.getName();
+
+    private final QueryScopeRegistry queryScopes;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        //비동기 응답(StreamingResponseBody)의 재디스패치면 처음 연 스코프를 다시 붙임
+        if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof QueryScope scope) {
+            scope.attach();
+            return true;
+        }
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (!StringUtils.hasText(requestId)) {
+            requestId = UUID.randomUUID().toString();
+        }
+        QueryScope scope = queryScopes.open(requestId, timeoutMillis(handler)).attach();
+        request.setAttribute(SCOPE_ATTRIBUTE, scope);
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        return true;
+    }
+
+    //비동기 처리로 넘어가면 요청 스레드에서만 떼어냄 (스코프는 응답 작성 스레드에서 계속 사용)
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryScope.detach();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof QueryScope scope) {
+            scope.close();
+        }
+    }
+
+    private long timeoutMillis(Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            QueryTimeout timeout = method.getMethodAnnotation(QueryTimeout.class);
+            if (timeout != null) {
+                return timeout.millis();
+            }
+        }
+        return queryScopes.defaultTimeoutMillis();
+    }
+}
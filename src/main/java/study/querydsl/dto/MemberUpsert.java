@@ -0,0 +1,15 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberUpsert {
+    //username 이 키 - 있으면 나이/팀 변경, 없으면 추가 (teamName 이 null 이면 팀 없음)
+    private String username;
+    private int age;
+    private String teamName;
+}
@@ -2,11 +2,19 @@ package study.querydsl.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_modified_at", columnList = "modified_at")
+}) //정렬/검색 조건 인덱스 (SortPlanner 가 허용하는 정렬 컬럼) + 저장된 인덱스 따라잡기용 변경 시각
 @ToString(of={"id","username","age"}) //연관관계는 제외하고 toString(매서드 객체가 가지고 있는 정보나 값들을 문자열로 만들어 리턴)
 public class Member {
     @Id
@@ -20,6 +28,13 @@ public class Member {
     @JoinColumn(name="team_id")
     private Team team;
 
+    //insert/update(더티 체킹) 때 Hibernate 가 설정 - 저장된 인덱스 파일 이후 바뀐 회원을 찾는 워터마크
+    //JPQL 벌크 update 는 직접 set 해야 반영됨
+    @UpdateTimestamp
+    @Column(name = "modified_at")
+    @Setter(AccessLevel.NONE)
+    private Instant modifiedAt;
+
     public Member(String username, int age,Team team) {
         this.username = username;
         this.age = age;
@@ -0,0 +1,33 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+//회원 검색용 읽기 모델 (member + team.name 비정규화) - MemberSearchProjector 가 변경 이벤트로 갱신
+//검색 조건/정렬 모양별 인덱스: username, (team_name, age), age
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "member_search", indexes = {
+        @Index(name = "idx_member_search_username", columnList = "username"),
+        @Index(name = "idx_member_search_team_name_age", columnList = "team_name, age"),
+        @Index(name = "idx_member_search_age", columnList = "age")
+})
+@ToString
+public class MemberSearch {
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+
+    public MemberSearch(Long memberId, String username, int age, Long teamId, String teamName) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+}
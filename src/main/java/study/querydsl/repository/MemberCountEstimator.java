@@ -0,0 +1,73 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.springframework.util.StringUtils.hasText;
+
+//조건이 없거나 느슨한 검색에서 수백만 건 count(*) 대신 MySQL 통계로 전체 개수를 추정
+@Repository
+@RequiredArgsConstructor
+public class MemberCountEstimator {
+
+    //추정치가 이 값보다 작으면 정확한 count 쿼리도 충분히 빠르므로 추정치를 쓰지 않음
+    public static final long EXACT_COUNT_THRESHOLD = 10_000L;
+
+    private final EntityManager em;
+
+    public OptionalLong estimate(MemberSearchCondition condition) {
+        //username, teamName 조건은 선택도가 높아서 정확한 count가 더 정확하고 싸다
+        if (hasText(condition.getUsername()) || hasText(condition.getTeamName())) {
+            return OptionalLong.empty();
+        }
+        long estimated = condition.getAgeGoe() == null && condition.getAgeLoe() == null
+                ? tableRows()
+                : explainRows(condition);
+        return estimated >= EXACT_COUNT_THRESHOLD ? OptionalLong.of(estimated) : OptionalLong.empty();
+    }
+
+    //조건이 없을 때 - InnoDB 테이블 통계 (information_schema.tables.table_rows)
+    private long tableRows() {
+        Object rows = em.createNativeQuery(
+                        "select t.table_rows from information_schema.tables t" +
+                                " where t.table_schema = database() and t.table_name = 'member'")
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+        return rows instanceof Number number ? number.longValue() : 0L;
+    }
+
+    //나이 조건만 있을 때 - EXPLAIN 의 rows * filtered 추정치
+    private long explainRows(MemberSearchCondition condition) {
+        StringBuilder sql = new StringBuilder("explain select m.member_id from member m where 1 = 1");
+        List<Integer> params = new ArrayList<>();
+        if (condition.getAgeGoe() != null) {
+            params.add(condition.getAgeGoe());
+            sql.append(" and m.age >= ?").append(params.size());
+        }
+        if (condition.getAgeLoe() != null) {
+            params.add(condition.getAgeLoe());
+            sql.append(" and m.age <= ?").append(params.size());
+        }
+
+        Query query = em.createNativeQuery(sql.toString());
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        List<?> plan = query.getResultList();
+        //EXPLAIN 컬럼 순서: id, select_type, table, partitions, type, possible_keys, key, key_len, ref, rows, filtered, Extra
+        if (plan.isEmpty() || !(plan.get(0) instanceof Object[] row) || row.length < 11) {
+            return 0L;
+        }
+        long rows = row[9] instanceof Number number ? number.longValue() : 0L;
+        double filtered = row[10] instanceof Number number ? number.doubleValue() : 100.0;
+        return (long) (rows * filtered / 100.0);
+    }
+}
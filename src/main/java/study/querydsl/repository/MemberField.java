@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.InvalidFieldException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//fields= 로 고를 수 있는 회원 검색 필드 (MemberTeamDto 의 프로퍼티 이름과 같음)
+//teamId 는 member.team_id 외래키라서 team 조인 없이 조회, teamName 만 조인 필요
+public enum MemberField {
+    MEMBER_ID("memberId", member.id, false, MemberTeamDto::getMemberId),
+    USERNAME("username", member.username, false, MemberTeamDto::getUsername),
+    AGE("age", member.age, false, MemberTeamDto::getAge),
+    TEAM_ID("teamId", member.team.id, false, MemberTeamDto::getTeamId),
+    TEAM_NAME("teamName", team.name, true, MemberTeamDto::getTeamName);
+
+    private final String property;
+    private final Expression<?> expression;
+    private final boolean teamJoin;
+    private final Function<MemberTeamDto, Object> dtoValue;
+
+    MemberField(String property, Expression<?> expression, boolean teamJoin, Function<MemberTeamDto, Object> dtoValue) {
+        this.property = property;
+        this.expression = expression;
+        this.teamJoin = teamJoin;
+        this.dtoValue = dtoValue;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public Expression<?> expression() {
+        return expression;
+    }
+
+    public boolean requiresTeamJoin() {
+        return teamJoin;
+    }
+
+    //"memberId,username" -> [MEMBER_ID, USERNAME] (응답 필드 순서는 enum 순서)
+    public static Set<MemberField> parse(String fields) {
+        Map<String, MemberField> byProperty = Arrays.stream(values())
+                .collect(Collectors.toMap(MemberField::property, Function.identity()));
+        Set<MemberField> selected = EnumSet.noneOf(MemberField.class);
+        for (String name : fields.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            MemberField field = byProperty.get(name.trim());
+            if (field == null) {
+                throw new InvalidFieldException("unknown field: " + name.trim() + " (allowed: " + byProperty.keySet() + ")");
+            }
+            selected.add(field);
+        }
+        if (selected.isEmpty()) {
+            throw new InvalidFieldException("fields must not be empty");
+        }
+        return selected;
+    }
+
+    public static Expression<?>[] expressions(Collection<MemberField> fields) {
+        return fields.stream().map(MemberField::expression).toArray(Expression<?>[]::new);
+    }
+
+    //요청한 필드만 담은 응답 (null 값도 요청한 필드면 포함)
+    public static Map<String, Object> toMap(Tuple tuple, Collection<MemberField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        fields.forEach(field -> row.put(field.property, tuple.get(field.expression)));
+        return row;
+    }
+
+    public static Map<String, Object> toMap(MemberTeamDto dto, Collection<MemberField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        fields.forEach(field -> row.put(field.property, field.dtoValue.apply(dto)));
+        return row;
+    }
+}
@@ -0,0 +1,5 @@
+package study.querydsl.repository;
+
+//리포트용 - searchByIdRange 로 나눠 읽을 전체 member.id 범위 [minId, maxId] (샤드 모드에서는 전역 id)
+public record MemberIdBounds(long minId, long maxId) {
+}
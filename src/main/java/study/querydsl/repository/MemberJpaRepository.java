@@ -13,6 +13,8 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.cache.MemberSearchCache;
+import study.querydsl.repository.cache.MemberSearchKey;
 
 import java.util.List;
 import java.util.Optional;
@@ -28,6 +30,7 @@ import static study.querydsl.entity.QTeam.team;
 public class MemberJpaRepository {
     private final EntityManager em;
     private final JPAQueryFactory queryFactory; //JPAQueryFactory : JPA의 엔티티룰 이용하여 JPQL Query를 보다 쉽고 편리하게 작성할 수 있는 QueryDSl 도구
+    private final MemberSearchCache searchCache;
 
 //    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
 //        this.em = em;
@@ -106,6 +109,11 @@ public class MemberJpaRepository {
      } -> 조건이 없을 경우 하나도 없을떄 제한을 걸어둠
      */
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        //같은 조건은 캐시에서 (회원/팀 변경 시 쓰기 버전으로 무효화)
+        return searchCache.get(MemberSearchKey.of("jpa.search", condition), () -> fetchSearch(condition));
+    }
+
+    private List<MemberTeamDto> fetchSearch(MemberSearchCondition condition) {
         return queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -0,0 +1,162 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+//리포트용 전체 조회 - member.id 키 범위를 N개로 나눠서 여러 커넥션에서 동시에 조회
+//한 번에 parallelism 개의 범위만 조회 중이고, consumer 가 한 범위를 다 처리해야 다음 범위를 조회 (back-pressure)
+//범위 하나는 List 로 한 번에 읽으므로 메모리에는 최대 (parallelism + 1) * max-range-ids 건
+//-> 테이블이 크면 partitions 를 늘려서 범위 하나가 max-range-ids 개 id 를 넘지 않게 함 (id 가 듬성하면 더 적음)
+//id 범위와 범위 조회 모두 MemberRepositoryCustom(@Primary - 원본/읽기 모델/샤드 중 설정된 구현)에서
+@Repository
+public class MemberReportRepository {
+
+    private final MemberRepositoryCustom memberRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final long maxRangeIds;
+
+    public MemberReportRepository(MemberRepositoryCustom memberRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  ParallelQueryExecutor queryExecutor,
+                                  @Value("${member.report.parallelism:4}") int parallelism,
+                                  @Value("${member.report.max-range-ids:10000}") long maxRangeIds) {
+        this.memberRepository = memberRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executor = queryExecutor.executor();
+        this.parallelism = Math.max(1, parallelism);
+        this.maxRangeIds = Math.max(1, maxRangeIds);
+    }
+
+    public long scan(MemberSearchCondition condition, boolean ordered, Consumer<List<MemberTeamDto>> consumer) {
+        return scan(condition, parallelism * 4, ordered, consumer);
+    }
+
+    //ordered = true 면 id 순서대로, false 면 먼저 끝난 범위부터 consumer 에 전달
+    public long scan(MemberSearchCondition condition, int partitions, boolean ordered,
+                     Consumer<List<MemberTeamDto>> consumer) {
+        Optional<MemberIdBounds> bounds = memberRepository.findIdBounds();
+        if (bounds.isEmpty()) {
+            return 0L;
+        }
+
+        long minId = bounds.get().minId();
+        long maxId = bounds.get().maxId();
+        List<long[]> ranges = splitRanges(minId, maxId, partitionsFor(minId, maxId, partitions, maxRangeIds));
+        return ordered
+                ? scanOrdered(condition, ranges, consumer)
+                : scanUnordered(condition, ranges, consumer);
+    }
+
+    private long scanOrdered(MemberSearchCondition condition, List<long[]> ranges,
+                             Consumer<List<MemberTeamDto>> consumer) {
+        Deque<Future<List<MemberTeamDto>>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        long rows = 0;
+        try {
+            while (next < ranges.size() && inFlight.size() < parallelism) {
+                inFlight.add(executor.submit(rangeQuery(condition, ranges.get(next++))));
+            }
+            while (!inFlight.isEmpty()) {
+                List<MemberTeamDto> chunk = await(inFlight.poll());
+                consumer.accept(chunk);
+                rows += chunk.size();
+                if (next < ranges.size()) {
+                    inFlight.add(executor.submit(rangeQuery(condition, ranges.get(next++))));
+                }
+            }
+            return rows;
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private long scanUnordered(MemberSearchCondition condition, List<long[]> ranges,
+                               Consumer<List<MemberTeamDto>> consumer) {
+        CompletionService<List<MemberTeamDto>> completion = new ExecutorCompletionService<>(executor);
+        List<Future<List<MemberTeamDto>>> submitted = new ArrayList<>();
+        int next = 0;
+        int pending = 0;
+        long rows = 0;
+        try {
+            while (next < ranges.size() && pending < parallelism) {
+                submitted.add(completion.submit(rangeQuery(condition, ranges.get(next++))));
+                pending++;
+            }
+            while (pending > 0) {
+                List<MemberTeamDto> chunk = await(completion.take());
+                pending--;
+                consumer.accept(chunk);
+                rows += chunk.size();
+                if (next < ranges.size()) {
+                    submitted.add(completion.submit(rangeQuery(condition, ranges.get(next++))));
+                    pending++;
+                }
+            }
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("member report scan interrupted", e);
+        } finally {
+            submitted.forEach(future -> future.cancel(true));
+        }
+    }
+
+    //범위마다 별도 스레드 + 읽기 전용 트랜잭션 -> 별도 커넥션에서 실행
+    private Callable<List<MemberTeamDto>> rangeQuery(MemberSearchCondition condition, long[] range) {
+        return () -> readOnlyTransaction.execute(status ->
+                memberRepository.searchByIdRange(condition, range[0], range[1]));
+    }
+
+    private List<MemberTeamDto> await(Future<List<MemberTeamDto>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("member report scan interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("member report range query failed", e.getCause());
+        }
+    }
+
+    //요청한 partitions 이상이면서 범위 하나가 maxRangeIds 개 id 이하가 되는 개수
+    static int partitionsFor(long minId, long maxId, int partitions, long maxRangeIds) {
+        long span = maxId - minId + 1;
+        long needed = (span + maxRangeIds - 1) / maxRangeIds;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(Math.max(1, partitions), needed));
+    }
+
+    //[minId, maxId] 를 partitions 개(id 가 partitions 개보다 적으면 id 개수)의 [from, to) 범위로 분할
+    static List<long[]> splitRanges(long minId, long maxId, int partitions) {
+        long span = maxId - minId + 1;
+        long step = Math.max(1, (span + partitions - 1) / partitions);
+        List<long[]> ranges = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += step) {
+            ranges.add(new long[]{from, Math.min(from + step, maxId + 1)});
+        }
+        return ranges;
+    }
+}
@@ -6,7 +6,7 @@ import study.querydsl.entity.Member;
 
 import java.util.List;
 
-public interface MemberRepository extends JpaRepository<Member, Long> , MemberRepositoryCustom, QuerydslPredicateExecutor<Member> {
+public interface MemberRepository extends JpaRepository<Member, Long> , MemberRepositoryCustom, MemberUpsertRepository, QuerydslPredicateExecutor<Member> {
     //select m from Member m where m.username - ?
     List<Member> findByUsername(String username);
 }
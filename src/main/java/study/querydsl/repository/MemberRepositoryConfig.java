@@ -0,0 +1,30 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.support.SortPlanner;
+
+import java.util.Map;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+
+@Configuration
+public class MemberRepositoryConfig {
+
+    //회원 검색 정렬: id(PK), username, age 인덱스만 허용 / teamName 은 조인 결과 정렬이라 filesort
+    @Bean
+    SortPlanner memberSortPlanner(MeterRegistry meterRegistry,
+                                  @Value("${member.sort.policy:REWRITE}") SortPlanner.Policy policy) {
+        return new SortPlanner(member.id,
+                Map.of("memberId", member.id,
+                        "id", member.id,
+                        "username", member.username,
+                        "age", member.age),
+                Set.of("teamId", "teamName"),
+                policy,
+                meterRegistry);
+    }
+}
@@ -2,10 +2,15 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 public interface MemberRepositoryCustom {
 
@@ -19,6 +24,32 @@ public interface MemberRepositoryCustom {
     //
     Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable);
 
+    //조건이 없거나 느슨하면 전체 개수를 통계 기반 추정치로 (EstimatedPageImpl.exactTotal 로 구분)
+    Page<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable);
+
+    //리포트용 - member.id 가 [fromId, toId) 범위인 회원만 id 순으로, 범위를 나눌 전체 id 범위 (회원이 없으면 empty)
+    List<MemberTeamDto> searchByIdRange(MemberSearchCondition condition, long fromId, long toId);
+    Optional<MemberIdBounds> findIdBounds();
+
+    //팀별 나이 상위 N 명 / 나이가 평균 이상인 회원 - 서브쿼리 반복 대신 윈도우 함수로 한 번에
+    List<MemberTeamDto> findTopByAgePerTeam(int topN);
+    List<MemberTeamDto> findAboveAverageAge();
+
+    //무한 스크롤 - count 쿼리 없이 다음 페이지 여부만
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    //다건 조회 - findById/findByUsername 반복 대신 IN 절 묶음으로, 결과는 입력 키 순서 (없는 키는 제외, 중복 키는 한 번)
+    List<MemberTeamDto> findAllByIdsOrdered(Collection<Long> ids);
+    List<MemberTeamDto> findByUsernames(Collection<String> usernames);
+
+    //BFF 위젯용 묶음 검색 - 조건 여러 개를 한 번에 (같은 조건은 한 번만 조회), 결과는 입력 순서대로 조건별 목록 (회원 id 순)
+    //조건마다 회원 id 순 앞의 maxRowsPerCondition 건까지만
+    List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions, int maxRowsPerCondition);
+
+    //fields= 로 고른 컬럼만 조회해서 필드 이름 -> 값 (팀 필드/조건이 없으면 team 조인 생략)
+    List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields);
+    Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable);
+
 
 
 }
@@ -1,6 +1,8 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
@@ -9,13 +11,35 @@ import jakarta.persistence.EntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.cache.MemberSearchCache;
+import study.querydsl.repository.cache.MemberSearchKey;
+import study.querydsl.repository.plan.MemberSearchPlan;
+import study.querydsl.repository.plan.MemberSearchPlanner;
+import study.querydsl.repository.support.EstimatedPageImpl;
+import study.querydsl.repository.support.InListChunks;
+import study.querydsl.repository.support.MemberCollation;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+import study.querydsl.repository.support.QueryScope;
+import study.querydsl.repository.support.SliceExecutionUtils;
+import study.querydsl.repository.support.SortPlanner;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import static org.springframework.data.support.PageableExecutionUtils.getPage;
 import static org.springframework.util.StringUtils.hasText;
@@ -28,14 +52,31 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
 //    }
 
     private final JPAQueryFactory queryFactory;
+    private final MemberCountEstimator countEstimator;
+    private final MemberSearchCache searchCache;
+    private final SortPlanner sortPlanner;
+    private final ParallelQueryExecutor queryExecutor;
+    private final MemberSearchPlanner searchPlanner;
 
-    public  MemberRepositoryImpl(EntityManager em) {
+    public  MemberRepositoryImpl(JPAQueryFactory queryFactory, MemberCountEstimator countEstimator, MemberSearchCache searchCache,
+                                 SortPlanner memberSortPlanner, ParallelQueryExecutor queryExecutor,
+                                 MemberSearchPlanner searchPlanner) {
         super(Member.class);
-        this.queryFactory = new JPAQueryFactory(em);
-
+        this.queryFactory = queryFactory;
+        this.countEstimator = countEstimator;
+        this.searchCache = searchCache;
+        this.sortPlanner = memberSortPlanner;
+        this.queryExecutor = queryExecutor;
+        this.searchPlanner = searchPlanner;
     }
 
 
+    //QuerydslRepositorySupport.from() 으로 만드는 쿼리에도 요청별 query timeout/취소 적용
+    @Override
+    protected JPQLQuery<Object> from(EntityPath<?>... paths) {
+        return QueryScope.apply((JPAQuery<Object>) super.from(paths), getEntityManager());
+    }
+
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
 
@@ -76,6 +117,57 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                 .fetch();
     }
 
+    @Override
+    public List<MemberTeamDto> searchByIdRange(MemberSearchCondition condition, long fromId, long toId) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.goe(fromId),
+                        member.id.lt(toId),
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    @Override
+    public Optional<MemberIdBounds> findIdBounds() {
+        Tuple bounds = queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .fetchOne();
+        Long minId = bounds == null ? null : bounds.get(member.id.min());
+        Long maxId = bounds == null ? null : bounds.get(member.id.max());
+        return minId == null || maxId == null ? Optional.empty() : Optional.of(new MemberIdBounds(minId, maxId));
+    }
+
+    @Override
+    public List<MemberTeamDto> findTopByAgePerTeam(int topN) {
+        List<?> rows = getEntityManager()
+                .createNativeQuery(MemberWindowQueries.TOP_BY_AGE_PER_TEAM)
+                .setParameter("topN", topN)
+                .getResultList();
+        return rows.stream().map(row -> MemberWindowQueries.toDto((Object[]) row)).toList();
+    }
+
+    @Override
+    public List<MemberTeamDto> findAboveAverageAge() {
+        List<?> rows = getEntityManager()
+                .createNativeQuery(MemberWindowQueries.ABOVE_AVERAGE_AGE)
+                .getResultList();
+        return rows.stream().map(row -> MemberWindowQueries.toDto((Object[]) row)).toList();
+    }
+
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
        //QueryResults<MemberTeamDto> memberTeamDtoQueryResults = queryFactory
@@ -94,7 +186,14 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ));
-        JPQLQuery<MemberTeamDto> query = getQuerydsl().applyPagination(pageable,jpaQuery);
+        //클라이언트 Sort 는 SortPlanner 로 인덱스 정렬 + id tiebreaker 로 변환 (비싼 정렬은 거절/제외)
+        JPQLQuery<MemberTeamDto> query = jpaQuery
+                .orderBy(sortPlanner.plan(pageable.getSort()));
+        //Pageable.unpaged() 는 offset/pageSize 가 없으므로(UnsupportedOperationException) 전체 조회
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset())
+                    .limit(pageable.getPageSize());
+        }
 
                 //offset 몇번째부터 시작할건지
 //                .offset(pageable.getOffset())
@@ -185,6 +284,140 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
 
     @Override
     public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        //같은 조건 + 페이지는 캐시에서 (회원/팀 변경 시 쓰기 버전으로 무효화)
+        return searchCache.get(MemberSearchKey.of("searchPage", condition, pageable),
+                () -> fetchSearchPage(condition, pageable));
+    }
+
+    //조건/페이지마다 MemberSearchPlanner 가 고른 전략으로 실행
+    private Page<MemberTeamDto> fetchSearchPage(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchPlan plan = searchPlanner.plan(condition, pageable);
+        if (plan.paging() == MemberSearchPlan.Paging.IN_MEMORY) {
+            Page<MemberTeamDto> page = searchPageInMemory(condition, pageable, plan.access());
+            if (page != null) {
+                return page;
+            }
+        }
+
+        JPAQuery<Long> countQuery = searchCountQuery(condition);
+        //결과가 많을 것 같으면 count 를 먼저 병렬로 시작 (트랜잭션 안이면 같은 커넥션이어야 하므로 차례로)
+        CompletableFuture<Long> parallelCount = plan.count() == MemberSearchPlan.Count.EXACT
+                && !TransactionSynchronizationManager.isActualTransactionActive()
+                ? CompletableFuture.supplyAsync(countQuery::fetchOne, queryExecutor.executor())
+                : null;
+
+        List<MemberTeamDto> content = plan.paging() == MemberSearchPlan.Paging.KEYSET
+                ? searchContentKeyset(condition, pageable, plan.access())
+                : searchQuery(condition, plan.access())
+                        .orderBy(sortPlanner.plan(pageable.getSort()))
+                        .offset(pageable.getOffset())
+                        .limit(pageable.getPageSize())
+                        .fetch();
+
+        if (parallelCount != null) {
+            Long total = parallelCount.join();
+            return new PageImpl<>(content, pageable, total == null ? 0L : total);
+        }
+        return getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    //추정 결과가 작음 - 한 번에 다 읽고 메모리에서 자름, 추정보다 많으면 null (offset 으로 다시)
+    private Page<MemberTeamDto> searchPageInMemory(MemberSearchCondition condition, Pageable pageable,
+                                                   MemberSearchPlan.Access access) {
+        int maxRows = searchPlanner.inMemoryMaxRows();
+        List<MemberTeamDto> all = searchQuery(condition, access)
+                .orderBy(sortPlanner.plan(pageable.getSort()))
+                .limit(maxRows + 1L)
+                .fetch();
+        if (all.size() > maxRows) {
+            return null;
+        }
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(new ArrayList<>(all.subList(from, to)), pageable, all.size());
+    }
+
+    //깊은 offset + id 순서 - id 만 읽어서 시작 id 를 찾고 (커버링 인덱스, 행/조인 안 읽음) 거기서부터 pageSize 건
+    private List<MemberTeamDto> searchContentKeyset(MemberSearchCondition condition, Pageable pageable,
+                                                    MemberSearchPlan.Access access) {
+        Sort.Order idOrder = pageable.getSort().stream().findFirst().orElse(null);
+        boolean ascending = idOrder == null || idOrder.isAscending();
+
+        JPAQuery<Long> boundaryQuery = queryFactory
+                .select(member.id)
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            boundaryQuery.join(member.team, team);
+        }
+        Long boundary = boundaryQuery
+                .where(searchConditions(condition))
+                .orderBy(ascending ? member.id.asc() : member.id.desc())
+                .offset(pageable.getOffset())
+                .fetchFirst();
+        if (boundary == null) {
+            return List.of();
+        }
+        return searchQuery(condition, access)
+                .where(ascending ? member.id.goe(boundary) : member.id.loe(boundary))
+                .orderBy(sortPlanner.plan(pageable.getSort()))
+                .limit(pageable.getPageSize())
+                .fetch();
+    }
+
+    //TEAM 출발이면 inner join - teamName 조건이 있어서 left join 과 결과가 같고, 옵티마이저가 team 부터 읽을 수 있음
+    private JPAQuery<MemberTeamDto> searchQuery(MemberSearchCondition condition, MemberSearchPlan.Access access) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member);
+        if (access == MemberSearchPlan.Access.TEAM) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        return query.where(searchConditions(condition));
+    }
+
+    //조건별 결과는 검색 캐시를 거치고, 캐시에 없는 조건들만 union all 한 문장으로 (MemberSearchUnion) - DB 왕복 한 번
+    @Override
+    public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions, int maxRowsPerCondition) {
+        MemberSearchBatch batch = MemberSearchBatch.of(conditions);
+        List<MemberSearchKey> keys = batch.distinct().stream()
+                .map(condition -> MemberSearchKey.of("searchAll:" + maxRowsPerCondition, condition))
+                .toList();
+        List<List<MemberTeamDto>> results = searchCache.getAll(keys, misses -> MemberSearchUnion.fetch(
+                getEntityManager(), MemberSearchUnion.Source.MEMBER,
+                misses.stream().map(batch.distinct()::get).toList(), maxRowsPerCondition));
+        return batch.expand(results);
+    }
+
+    //count 는 teamName 조건이 있을 때만 조인
+    private JPAQuery<Long> searchCountQuery(MemberSearchCondition condition) {
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            countQuery.join(member.team, team);
+        }
+        return countQuery.where(searchConditions(condition));
+    }
+
+    private BooleanExpression[] searchConditions(MemberSearchCondition condition) {
+        return new BooleanExpression[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable) {
         List<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -205,21 +438,165 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        JPAQuery<Long> countQuery = queryFactory
+        //첫 페이지가 pageSize 보다 작으면 그 자체가 정확한 전체 개수
+        if (pageable.getOffset() == 0 && content.size() < pageable.getPageSize()) {
+            return new EstimatedPageImpl<>(content, pageable, content.size(), true);
+        }
+
+        //조건이 없거나 느슨하면 통계 기반 추정치 사용 (임계값 미만이면 정확한 count로 fallback)
+        OptionalLong estimated = countEstimator.estimate(condition);
+        if (estimated.isPresent()) {
+            return new EstimatedPageImpl<>(content, pageable, estimated.getAsLong(), false);
+        }
+
+        Long total = queryFactory
                 .select(member.count())
                 .from(member)
                 .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .fetchOne();
+        return new EstimatedPageImpl<>(content, pageable, total == null ? 0L : total, true);
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 );
+        if (pageable.isUnpaged()) {
+            return SliceExecutionUtils.getSlice(query.fetch(), pageable);
+        }
+
+        //pageSize + 1 건 조회 -> 남는 한 건으로 hasNext 판단 (count 쿼리 X)
+        List<MemberTeamDto> content = query
+                .orderBy(sortPlanner.plan(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(SliceExecutionUtils.lookAheadLimit(pageable))
+                .fetch();
+
+        return SliceExecutionUtils.getSlice(content, pageable);
+    }
+
+    @Override
+    public List<MemberTeamDto> findAllByIdsOrdered(Collection<Long> ids) {
+        List<MemberTeamDto> found = fetchChunks(ids, chunk -> memberTeamDtoQuery()
+                .where(member.id.in(chunk))
+                .fetch());
+        return InListChunks.inKeyOrder(ids, found, MemberTeamDto::getMemberId);
+    }
+
+    @Override
+    public List<MemberTeamDto> findByUsernames(Collection<String> usernames) {
+        //같은 username 회원이 여러 명이면 id 순, username 은 컬럼 collation(대소문자/악센트 무시)으로 비교
+        List<String> distinct = InListChunks.distinctBy(usernames, MemberCollation::key);
+        List<MemberTeamDto> found = fetchChunks(distinct, chunk -> memberTeamDtoQuery()
+                .where(member.username.in(chunk))
+                .orderBy(member.id.asc())
+                .fetch());
+        return InListChunks.inKeyOrder(usernames, found, MemberTeamDto::getUsername, MemberCollation::key);
+    }
+
+    @Override
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields) {
+        return fieldsQuery(condition, fields)
+                .fetch()
+                .stream()
+                .map(tuple -> MemberField.toMap(tuple, fields))
+                .toList();
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+                                                      Pageable pageable) {
+        JPAQuery<Tuple> contentQuery = fieldsQuery(condition, fields)
+                .orderBy(sortPlanner.plan(pageable.getSort()));
+        if (pageable.isPaged()) {
+            contentQuery.offset(pageable.getOffset())
+                    .limit(pageable.getPageSize());
+        }
+        List<Map<String, Object>> content = contentQuery
+                .fetch()
+                .stream()
+                .map(tuple -> MemberField.toMap(tuple, fields))
+                .toList();
+
+        //count 는 teamName 조건이 있을 때만 조인
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            countQuery.leftJoin(member.team, team);
+        }
+        countQuery.where(usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()));
 
-        return getPage(content, pageable, () -> countQuery.stream().count());
+        return getPage(content, pageable, countQuery::fetchOne);
+    }
 
+    //요청한 컬럼만 select, team 조인은 teamName 필드나 teamName 조건이 있을 때만
+    private JPAQuery<Tuple> fieldsQuery(MemberSearchCondition condition, Set<MemberField> fields) {
+        JPAQuery<Tuple> query = queryFactory
+                .select(MemberField.expressions(fields))
+                .from(member);
+        boolean teamJoin = hasText(condition.getTeamName())
+                || fields.stream().anyMatch(MemberField::requiresTeamJoin);
+        if (teamJoin) {
+            query.leftJoin(member.team, team);
+        }
+        return query.where(usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()));
     }
 
+    private JPAQuery<MemberTeamDto> memberTeamDtoQuery() {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team);
+    }
+
+    //묶음이 여러 개면 병렬 조회 스레드풀에서 묶음마다 따로 (트랜잭션 밖이라 묶음마다 자기 커넥션)
+    //호출자가 트랜잭션 안이면 아직 커밋 안 된 변경이 보여야 하므로 같은 스레드에서 차례로
+    private <K> List<MemberTeamDto> fetchChunks(Collection<K> keys, Function<List<K>, List<MemberTeamDto>> fetcher) {
+        List<List<K>> chunks = InListChunks.of(keys, InListChunks.DEFAULT_MAX_CHUNK);
+        List<MemberTeamDto> found = new ArrayList<>();
+        if (chunks.size() <= 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+            chunks.forEach(chunk -> found.addAll(fetcher.apply(chunk)));
+            return found;
+        }
+        List<CompletableFuture<List<MemberTeamDto>>> futures = chunks.stream()
+                .map(chunk -> CompletableFuture.supplyAsync(() -> fetcher.apply(chunk), queryExecutor.executor()))
+                .toList();
+        futures.forEach(future -> found.addAll(future.join()));
+        return found;
+    }
 
     private BooleanExpression teamNameEq(String teamName) {
         return hasText(teamName) ? team.name.eq(teamName) : null;
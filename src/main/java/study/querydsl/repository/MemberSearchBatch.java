@@ -0,0 +1,39 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.cache.MemberSearchKey;
+import study.querydsl.repository.support.InvalidSearchBatchException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//묶음 검색 - 같은 결과가 나오는 조건(MemberSearchKey 가 같음)은 한 번만 조회하고 입력 위치마다 다시 펼침
+//distinct: 처음 나온 순서의 서로 다른 조건, slots: 입력 위치 -> distinct 번호
+public record MemberSearchBatch(List<MemberSearchCondition> distinct, List<Integer> slots) {
+
+    public static MemberSearchBatch of(List<MemberSearchCondition> conditions) {
+        Map<MemberSearchKey, Integer> numbers = new LinkedHashMap<>();
+        List<MemberSearchCondition> distinct = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>(conditions.size());
+        for (MemberSearchCondition condition : conditions) {
+            if (condition == null) {
+                throw new InvalidSearchBatchException("search condition must not be null (use {} for no condition)");
+            }
+            Integer number = numbers.get(MemberSearchKey.of("batch", condition));
+            if (number == null) {
+                number = distinct.size();
+                numbers.put(MemberSearchKey.of("batch", condition), number);
+                distinct.add(condition);
+            }
+            slots.add(number);
+        }
+        return new MemberSearchBatch(List.copyOf(distinct), List.copyOf(slots));
+    }
+
+    //distinct 순서의 결과 -> 입력 순서의 결과 (중복 조건은 같은 목록을 공유)
+    public <T> List<T> expand(List<T> distinctResults) {
+        return slots.stream().map(distinctResults::get).toList();
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.QueryScope;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.util.StringUtils.hasText;
+
+//묶음 검색의 여러 조건을 HQL union all 한 문장으로 (DB 왕복 한 번)
+//(select 조건번호, 회원 컬럼... where 조건 order by 회원 id limit maxRows) union all (...) - 조건 번호로 결과를 다시 나눔
+//QueryDSL JPA 는 union 을 만들 수 없어서 HQL 문자열로, 값은 모두 파라미터 바인딩
+//조건마다 회원 id 순 앞의 maxRows 건까지만 - {} 같은 빈 조건이 테이블 전체를 읽지 않도록
+public final class MemberSearchUnion {
+
+    //검색 대상 엔티티의 HQL 경로 (원본 member + team 조인 / 읽기 모델 member_search)
+    public record Source(String from, String memberId, String username, String age, String teamId, String teamName) {
+
+        public static final Source MEMBER = new Source("Member m left join m.team t",
+                "m.id", "m.username", "m.age", "t.id", "t.name");
+        public static final Source READ_MODEL = new Source("MemberSearch s",
+                "s.memberId", "s.username", "s.age", "s.teamId", "s.teamName");
+    }
+
+    private MemberSearchUnion() {
+    }
+
+    //결과는 conditions 순서대로 조건별 목록 (회원 id 순)
+    public static List<List<MemberTeamDto>> fetch(EntityManager em, Source source,
+                                                  List<MemberSearchCondition> conditions, int maxRows) {
+        List<List<MemberTeamDto>> results = new ArrayList<>(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            results.add(new ArrayList<>());
+        }
+        if (conditions.isEmpty()) {
+            return results;
+        }
+
+        StringBuilder hql = new StringBuilder();
+        Map<String, Object> parameters = new HashMap<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            if (i > 0) {
+                hql.append(" union all ");
+            }
+            hql.append("(select ").append(i).append(", ")
+                    .append(String.join(", ", source.memberId(), source.username(), source.age(),
+                            source.teamId(), source.teamName()))
+                    .append(" from ").append(source.from());
+            List<String> predicates = predicates(source, conditions.get(i), i, parameters);
+            if (!predicates.isEmpty()) {
+                hql.append(" where ").append(String.join(" and ", predicates));
+            }
+            hql.append(" order by ").append(source.memberId()).append(" limit ").append(maxRows).append(")");
+        }
+
+        TypedQuery<Object[]> query = em.createQuery(hql.toString(), Object[].class);
+        parameters.forEach(query::setParameter);
+        for (Object[] row : QueryScope.apply(query, em).getResultList()) {
+            results.get(((Number) row[0]).intValue()).add(new MemberTeamDto((Long) row[1], (String) row[2],
+                    ((Number) row[3]).intValue(), (Long) row[4], (String) row[5]));
+        }
+        //union all 결과 순서는 보장되지 않으므로 조건별로 다시 정렬
+        results.forEach(rows -> rows.sort(Comparator.comparing(MemberTeamDto::getMemberId)));
+        return results;
+    }
+
+    //MemberRepositoryImpl.searchConditions 와 같은 조건 (빈 문자열은 조건 없음)
+    private static List<String> predicates(Source source, MemberSearchCondition condition, int index,
+                                           Map<String, Object> parameters) {
+        List<String> predicates = new ArrayList<>();
+        if (hasText(condition.getUsername())) {
+            predicates.add(source.username() + " = :username" + index);
+            parameters.put("username" + index, condition.getUsername());
+        }
+        if (hasText(condition.getTeamName())) {
+            predicates.add(source.teamName() + " = :teamName" + index);
+            parameters.put("teamName" + index, condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            predicates.add(source.age() + " >= :ageGoe" + index);
+            parameters.put("ageGoe" + index, condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            predicates.add(source.age() + " <= :ageLoe" + index);
+            parameters.put("ageLoe" + index, condition.getAgeLoe());
+        }
+        return predicates;
+    }
+}
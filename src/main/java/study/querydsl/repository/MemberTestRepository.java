@@ -5,13 +5,16 @@ import com.querydsl.jpa.impl.JPAQuery;
 import jakarta.persistence.EntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
+import study.querydsl.repository.support.SortPlanner;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.springframework.util.StringUtils.isEmpty;
 import static study.querydsl.entity.QMember.member;
@@ -20,9 +23,10 @@ import static study.querydsl.entity.QTeam.team;
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
-    public MemberTestRepository(EntityManager entityManager) {
+    public MemberTestRepository(EntityManager entityManager, SortPlanner memberSortPlanner) {
         super(Member.class);
         setEntityManager(entityManager);
+        setSortPlanner(memberSortPlanner);
     }
 
     public List<Member> basicSelect() {
@@ -88,6 +92,39 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    public Slice<Member> applySlicing(MemberSearchCondition condition, Pageable pageable) {
+        return applySlicing(pageable, contentQuery -> contentQuery
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())));
+    }
+
+    //조건에 맞는 회원이 있는지 - select 1 ... limit 1
+    public boolean existsByCondition(MemberSearchCondition condition) {
+        return exists(query -> query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())));
+    }
+
+    //조건에 맞는 회원 중 id 가 가장 작은 한 명
+    public Optional<Member> findFirstByCondition(MemberSearchCondition condition) {
+        return findFirst(query -> query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(member.id.asc()));
+    }
+
     private BooleanExpression usernameEq(String username) {
         return isEmpty(username) ? null : member.username.eq(username);
     }
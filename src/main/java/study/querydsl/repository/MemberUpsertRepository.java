@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberUpsert;
+
+import java.util.List;
+
+//가져오기(import)용 username 기준 일괄 추가/변경 - 행마다 findByUsername + persist/더티 체킹 하지 않음
+public interface MemberUpsertRepository {
+
+    //batch 는 0부터, updated 는 변경한 회원 행 수 (같은 username 회원이 여럿이면 모두 변경)
+    record UpsertResult(int batch, int inserted, int updated) {
+    }
+
+    List<UpsertResult> upsertAll(List<MemberUpsert> rows);
+}
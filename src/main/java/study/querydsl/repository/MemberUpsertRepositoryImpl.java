@@ -0,0 +1,200 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberUpsert;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.cache.MemberJdbcWriter;
+import study.querydsl.repository.event.MemberChangeEvent;
+import study.querydsl.repository.event.MemberChangeEventBus;
+import study.querydsl.repository.support.InListChunks;
+import study.querydsl.repository.support.MemberCollation;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//batch-size 건씩 한 트랜잭션 (호출자 트랜잭션이 있으면 참여)
+//- 팀 이름 -> 팀: 쿼리 한 번 (같은 이름이면 id 가 작은 팀, 없는 팀 이름이면 그 batch 는 쓰지 않고 실패)
+//- username -> 회원 id: InListChunks 로 나눈 IN 조회
+//- 새 회원: persist 후 flush 한 번 - JDBC batch insert (rewriteBatchedStatements 면 multi-row INSERT),
+//  id 는 시퀀스 테이블에서 묶음으로 받음, 엔티티 이벤트로 캐시/블룸 필터/읽기 모델 반영
+//- 있는 회원: JDBC batch update (write-behind 와 같은 방식) 후 회원별 UPDATE 이벤트를 커밋 후 발행
+//username / 팀 이름은 컬럼 collation(대소문자/악센트 무시)대로 같은 값 - IN 조회가 'Bob' 으로 'bob' 을 찾으므로
+//입력 중복 제거와 조회 결과 매칭도 MemberCollation.key 로 (코드 포인트로 비교하면 'Bob' 이 새 회원으로 중복 추가됨)
+//username 에 unique 제약이 없어서 INSERT ... ON DUPLICATE KEY UPDATE 대신 조회 + batch insert/update
+//(같은 batch 를 동시에 가져오면 같은 이름이 두 번 추가될 수 있음)
+public class MemberUpsertRepositoryImpl implements MemberUpsertRepository {
+
+    //JDBC 로 직접 쓰므로 검색 캐시 무효화는 MemberJdbcWriter 가 함
+    private static final String UPDATE_SQL =
+            "update member set age = ?, team_id = ?, modified_at = ? where member_id = ?";
+    private static final int[] UPDATE_TYPES = {Types.INTEGER, Types.BIGINT, Types.TIMESTAMP, Types.BIGINT};
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final MemberJdbcWriter jdbcWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberChangeEventBus eventBus;
+    private final int batchSize;
+    private final Counter insertedRows;
+    private final Counter updatedRows;
+
+    public MemberUpsertRepositoryImpl(EntityManager em, JPAQueryFactory queryFactory, MemberJdbcWriter jdbcWriter,
+                                      PlatformTransactionManager transactionManager,
+                                      MemberChangeEventBus eventBus,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${member.upsert.batch-size:1000}") int batchSize) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.jdbcWriter = jdbcWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventBus = eventBus;
+        this.batchSize = batchSize;
+        this.insertedRows = rows(meterRegistry, "inserted");
+        this.updatedRows = rows(meterRegistry, "updated");
+    }
+
+    private static Counter rows(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("member.upsert.rows")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<UpsertResult> upsertAll(List<MemberUpsert> rows) {
+        //같은 username 이 여러 번 오면 마지막 값 (대소문자만 다른 이름도 같은 username)
+        Map<String, MemberUpsert> byUsername = new LinkedHashMap<>();
+        for (MemberUpsert row : rows) {
+            if (row.getUsername() == null) {
+                throw new IllegalArgumentException("username is required for upsert");
+            }
+            byUsername.put(MemberCollation.key(row.getUsername()), row);
+        }
+        List<MemberUpsert> distinct = new ArrayList<>(byUsername.values());
+
+        List<UpsertResult> results = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += batchSize) {
+            List<MemberUpsert> batch = distinct.subList(from, Math.min(distinct.size(), from + batchSize));
+            int number = results.size();
+            results.add(transactionTemplate.execute(status -> upsertBatch(number, batch)));
+        }
+        return results;
+    }
+
+    private UpsertResult upsertBatch(int number, List<MemberUpsert> batch) {
+        Map<String, Team> teams = teamsByName(batch);
+        Map<String, List<Long>> existing = existingIds(batch);
+
+        List<Member> inserted = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<MemberChangeEvent> events = new ArrayList<>();
+        Timestamp now = Timestamp.from(Instant.now());
+
+        Session session = em.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            for (MemberUpsert row : batch) {
+                Team rowTeam = row.getTeamName() == null ? null : teams.get(MemberCollation.key(row.getTeamName()));
+                List<Long> ids = existing.get(MemberCollation.key(row.getUsername()));
+                if (ids == null) {
+                    Member newMember = new Member(row.getUsername(), row.getAge());
+                    //changeTeam 은 team.members 를 초기화하므로 연관관계 주인 쪽만 설정
+                    newMember.setTeam(rowTeam);
+                    em.persist(newMember);
+                    inserted.add(newMember);
+                    continue;
+                }
+                Long teamId = rowTeam == null ? null : rowTeam.getId();
+                for (Long memberId : ids) {
+                    updates.add(new Object[]{row.getAge(), teamId, now, memberId});
+                    events.add(toEvent(memberId, row.getAge(), teamId));
+                }
+            }
+            em.flush();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+        //호출자 트랜잭션에 참여해도 영속성 컨텍스트가 batch 마다 커지지 않도록
+        inserted.forEach(em::detach);
+
+        if (!updates.isEmpty()) {
+            //바뀐 회원의 이전 팀을 모르므로 검색 캐시 전체 무효화 (MemberJdbcWriter)
+            jdbcWriter.batchUpdate(UPDATE_SQL, updates, UPDATE_TYPES);
+            events.forEach(eventBus::publish); //커밋 후 발행
+        }
+
+        insertedRows.increment(inserted.size());
+        updatedRows.increment(updates.size());
+        return new UpsertResult(number, inserted.size(), updates.size());
+    }
+
+    //MemberCollation.key(팀 이름) -> 팀
+    private Map<String, Team> teamsByName(List<MemberUpsert> batch) {
+        List<String> names = batch.stream()
+                .map(MemberUpsert::getTeamName)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (names.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Team> teams = new HashMap<>();
+        for (Team found : queryFactory
+                .selectFrom(team)
+                .where(team.name.in(names))
+                .orderBy(team.id.asc())
+                .fetch()) {
+            teams.putIfAbsent(MemberCollation.key(found.getName()), found);
+        }
+        List<String> unknown = names.stream().filter(name -> !teams.containsKey(MemberCollation.key(name))).toList();
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("unknown team names: " + unknown);
+        }
+        return teams;
+    }
+
+    //MemberCollation.key(username) -> 회원 id 들
+    private Map<String, List<Long>> existingIds(List<MemberUpsert> batch) {
+        List<String> usernames = batch.stream().map(MemberUpsert::getUsername).toList();
+        Map<String, List<Long>> ids = new HashMap<>();
+        for (List<String> chunk : InListChunks.of(usernames, InListChunks.DEFAULT_MAX_CHUNK)) {
+            for (Tuple row : queryFactory
+                    .select(member.username, member.id)
+                    .from(member)
+                    .where(member.username.in(chunk))
+                    .fetch()) {
+                ids.computeIfAbsent(MemberCollation.key(row.get(member.username)), username -> new ArrayList<>())
+                        .add(row.get(member.id));
+            }
+        }
+        return ids;
+    }
+
+    private static MemberChangeEvent toEvent(Long memberId, int age, Long teamId) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("age", age);
+        values.put("teamId", teamId);
+        return new MemberChangeEvent(MemberChangeEvent.Type.UPDATE, MemberChangeEvent.Entity.MEMBER, memberId,
+                teamId, null, Set.of("age", "teamId"), values, Map.of(), null);
+    }
+}
@@ -0,0 +1,370 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.jpa.AvailableHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.event.MemberChangeEvent;
+import study.querydsl.repository.event.MemberChangeEventBus;
+import study.querydsl.repository.event.MemberChangeSubscriber;
+import study.querydsl.repository.support.MappedIndexFile;
+import study.querydsl.repository.support.MemberCollation;
+import study.querydsl.repository.support.MySqlStreaming;
+import study.querydsl.repository.support.ScalableCountingBloomFilter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QMember.member;
+
+//username 존재 여부 확인 - 블룸 필터가 없다고 하면 DB 를 조회하지 않음 (가입/가져오기 중복 확인은 대부분 없는 이름)
+//- 기동 시 member.username 을 스트리밍(MySqlStreaming)으로 읽어서 필터 생성
+//- 추가/이름 변경은 flush 시점에 바로 필터에 추가 (커밋 직후 조회에서 거짓 음성이 없도록, 롤백되면 오탐만 늘어남)
+//- 삭제/이전 이름은 커밋 후 이벤트로, DB 에 같은 이름이 더는 없을 때만 필터에서 제거
+//- 벌크 연산/이벤트 유실이면 다시 생성 (생성 중에는 DB 로 확인)
+//- member.username-index.file 이 있으면 주기적으로/종료 시 MappedIndexFile 로 저장하고, 기동 시 파일 + 워터마크
+//  (max member_id, max modified_at - 여유 시간) 이후 바뀐 회원만 읽어서 따라잡음 (전체 스캔 X)
+//  저장 후 삭제된 이름은 필터에 남지만 오탐일 뿐 (DB 로 확인)
+//- 필터에는 MemberCollation.key 로 접은 이름을 넣음 - DB 의 username = ? 는 대소문자/악센트를 무시하므로
+//  'Bob' 만 있을 때 'bob' 도 있다고 해야 함 (원래 바이트로 해시하면 거짓 음성)
+@Slf4j
+@Component
+public class MemberUsernameIndex implements PostInsertEventListener, PostUpdateEventListener, MemberChangeSubscriber {
+
+    private static final String INDEX_KIND = "member-username-bloom";
+    //필터 직렬화 형식이 바뀌면 올림 -> 예전 파일은 무시하고 다시 생성
+    //2: MemberCollation.key 로 접은 이름을 넣음
+    private static final int INDEX_VERSION = 2;
+
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MemberChangeEventBus eventBus;
+    private final MeterRegistry meterRegistry;
+    private final double falsePositiveRate;
+    private final Object swapLock = new Object();
+    private final Path indexFile;
+    private final long catchUpMarginMillis;
+    private final long persistIntervalMillis;
+    private ScheduledExecutorService persister;
+
+    private volatile ScalableCountingBloomFilter filter;
+    private volatile boolean ready;
+    private List<String> addedWhileBuilding; //swapLock
+    private long addSequence; //swapLock - removeIfGone 확인 도중 추가가 있었는지
+
+    private final Counter negatives;
+    private final Counter truePositives;
+    private final Counter falsePositives;
+    private final Counter fallbacks;
+
+    public MemberUsernameIndex(EntityManagerFactory emf, JPAQueryFactory queryFactory,
+                               PlatformTransactionManager transactionManager, MemberChangeEventBus eventBus,
+                               MeterRegistry meterRegistry,
+                               @Value("${member.username-index.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${member.username-index.file:}") String indexFile,
+                               @Value("${member.username-index.catch-up-margin-ms:60000}") long catchUpMarginMillis,
+                               @Value("${member.username-index.persist-interval-ms:300000}") long persistIntervalMillis) {
+        this.emf = emf;
+        this.queryFactory = queryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.eventBus = eventBus;
+        this.meterRegistry = meterRegistry;
+        this.falsePositiveRate = falsePositiveRate;
+        this.indexFile = indexFile.isBlank() ? null : Path.of(indexFile);
+        this.catchUpMarginMillis = catchUpMarginMillis;
+        this.persistIntervalMillis = persistIntervalMillis;
+        this.filter = new ScalableCountingBloomFilter(1024, falsePositiveRate);
+
+        this.negatives = checks("negative");
+        this.truePositives = checks("true_positive");
+        this.falsePositives = checks("false_positive");
+        this.fallbacks = checks("fallback");
+        Gauge.builder("member.username.bloom.bytes", this, index -> index.filter.memoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("member.username.bloom.fpp.expected", this, index -> index.filter.expectedFalsePositiveRate())
+                .register(meterRegistry);
+        //필터가 "있을 수도" 라고 했지만 DB 에 없던 비율 (실제 없는 이름 기준)
+        Gauge.builder("member.username.bloom.fpp.observed", this, index -> {
+                    double misses = index.falsePositives.count() + index.negatives.count();
+                    return misses == 0 ? 0.0 : index.falsePositives.count() / misses;
+                })
+                .register(meterRegistry);
+    }
+
+    private Counter checks(String result) {
+        return Counter.builder("member.username.exists.checks")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (indexFile == null) {
+            rebuild();
+            eventBus.subscribe("username-index", this);
+            return;
+        }
+        if (!load()) {
+            rebuild();
+            save();
+        }
+        eventBus.subscribe("username-index", this);
+        persister = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("member-username-index-"));
+        persister.scheduleWithFixedDelay(this::save, persistIntervalMillis, persistIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (persister != null) {
+            persister.shutdownNow();
+            save();
+        }
+    }
+
+    //저장된 필터를 올리고 워터마크 이후 추가/변경된 username 만 더함
+    private synchronized boolean load() {
+        Optional<MappedIndexFile.Loaded> loaded;
+        try {
+            loaded = MappedIndexFile.load(indexFile, INDEX_KIND, INDEX_VERSION);
+        } catch (IOException e) {
+            log.warn("username index file {} unreadable, rebuilding", indexFile, e);
+            return false;
+        }
+        if (loaded.isEmpty()) {
+            return false;
+        }
+        ScalableCountingBloomFilter stored = ScalableCountingBloomFilter.readFrom(loaded.get().payload());
+        if (stored.initialFalsePositiveRate() != falsePositiveRate) {
+            log.info("username index file {} has a different false-positive rate, rebuilding", indexFile);
+            return false;
+        }
+        //따라잡는 동안 flush 되는 추가분도 이 필터로
+        synchronized (swapLock) {
+            filter = stored;
+        }
+
+        MappedIndexFile.Watermark watermark = loaded.get().watermark();
+        Instant since = Instant.ofEpochMilli(watermark.maxModifiedAtMillis() - catchUpMarginMillis);
+        long caughtUp = readOnlyTransaction.execute(status -> {
+            try (Stream<String> usernames = queryFactory
+                    .select(member.username)
+                    .from(member)
+                    .where(member.id.gt(watermark.maxId()).or(member.modifiedAt.goe(since)))
+                    .setHint(AvailableHints.HINT_FETCH_SIZE, MySqlStreaming.FETCH_SIZE)
+                    .stream()) {
+                return usernames.filter(Objects::nonNull).peek(this::add).count();
+            }
+        });
+        ready = true;
+        log.info("username bloom filter loaded from {}: {} bytes, caught up {} usernames after member_id {} / {}",
+                indexFile, stored.memoryBytes(), caughtUp, watermark.maxId(), since);
+        return true;
+    }
+
+    //워터마크를 먼저 읽고 필터를 저장 - 필터에는 워터마크 시점까지의 변경이 모두 들어 있음
+    public synchronized void save() {
+        if (indexFile == null || !ready) {
+            return;
+        }
+        try {
+            Tuple marks = readOnlyTransaction.execute(status -> queryFactory
+                    .select(member.id.max(), member.modifiedAt.max())
+                    .from(member)
+                    .fetchOne());
+            Long maxId = marks == null ? null : marks.get(0, Long.class);
+            Instant maxModifiedAt = marks == null ? null : marks.get(1, Instant.class);
+            MappedIndexFile.write(indexFile, INDEX_KIND, INDEX_VERSION,
+                    new MappedIndexFile.Watermark(maxId == null ? 0L : maxId,
+                            maxModifiedAt == null ? 0L : maxModifiedAt.toEpochMilli()),
+                    filter::writeTo);
+        } catch (IOException | RuntimeException e) {
+            log.warn("failed to save username index to {}", indexFile, e);
+        }
+    }
+
+    public boolean existsByUsername(String username) {
+        if (!ready) {
+            fallbacks.increment();
+            return existsInDatabase(username);
+        }
+        if (!filter.mightContain(MemberCollation.key(username))) {
+            negatives.increment();
+            return false;
+        }
+        boolean exists = existsInDatabase(username);
+        (exists ? truePositives : falsePositives).increment();
+        return exists;
+    }
+
+    //import 처럼 엔티티 이벤트 없이 저장하는 경로에서 호출
+    public void add(String username) {
+        if (username == null) {
+            return;
+        }
+        String key = MemberCollation.key(username);
+        synchronized (swapLock) {
+            filter.add(key);
+            addSequence++;
+            if (addedWhileBuilding != null) {
+                addedWhileBuilding.add(key);
+            }
+        }
+    }
+
+    public synchronized void rebuild() {
+        synchronized (swapLock) {
+            addedWhileBuilding = new ArrayList<>();
+        }
+        Long total = readOnlyTransaction.execute(status -> queryFactory.select(member.count()).from(member).fetchOne());
+        ScalableCountingBloomFilter next = new ScalableCountingBloomFilter(
+                Math.max(1024, total == null ? 0 : total * 2), falsePositiveRate);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<String> usernames = queryFactory
+                    .select(member.username)
+                    .from(member)
+                    .setHint(AvailableHints.HINT_FETCH_SIZE, MySqlStreaming.FETCH_SIZE)
+                    .stream()) {
+                usernames.filter(Objects::nonNull).map(MemberCollation::key).forEach(next::add);
+            }
+        });
+        synchronized (swapLock) {
+            addedWhileBuilding.forEach(next::add);
+            addedWhileBuilding = null;
+            filter = next;
+        }
+        ready = true;
+        log.info("username bloom filter built: {} usernames, {} bytes, {} layers",
+                total, next.memoryBytes(), next.layerCount());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            add(member.getUsername());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member member && usernameChanged(event)) {
+            add(member.getUsername());
+        }
+    }
+
+    //나이/팀만 바뀐 update 로 카운팅 필터 값이 늘어나지 않도록 (dirty 속성을 모르면 바뀐 것으로 봄)
+    private static boolean usernameChanged(PostUpdateEvent event) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null) {
+            return true;
+        }
+        String[] names = event.getPersister().getPropertyNames();
+        for (int index : dirty) {
+            if ("username".equals(names[index])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onChange(MemberChangeEvent event) {
+        if (event.entity() != MemberChangeEvent.Entity.MEMBER) {
+            return;
+        }
+        if (event.type() == MemberChangeEvent.Type.BULK_UPDATE && event.changed("username")) {
+            //바뀐 이름을 모르므로 다시 생성할 때까지 DB 로 확인
+            ready = false;
+            rebuild();
+        } else if (event.type() == MemberChangeEvent.Type.BULK_DELETE) {
+            rebuild();
+        } else if (event.type() == MemberChangeEvent.Type.DELETE
+                || (event.type() == MemberChangeEvent.Type.UPDATE && event.changed("username"))) {
+            removeIfGone((String) event.previousValues().get("username"));
+        }
+    }
+
+    @Override
+    public void onOverrun(long lost) {
+        ready = false;
+        rebuild();
+    }
+
+    //같은 이름의 다른 회원이 남아 있으면 필터에 그대로 둠
+    //DB 확인과 제거 사이에 필터가 다시 만들어졌거나(그 필터에는 없는 이름) 어떤 이름이든 추가됐으면 제거하지 않음
+    //(같은 이름이 다시 추가됐을 수 있음 - 남겨 두면 오탐일 뿐이고, 잘못 빼면 거짓 음성)
+    private void removeIfGone(String username) {
+        if (username == null) {
+            return;
+        }
+        ScalableCountingBloomFilter checked;
+        long sequence;
+        synchronized (swapLock) {
+            checked = filter;
+            sequence = addSequence;
+        }
+        if (existsInDatabase(username)) {
+            return;
+        }
+        synchronized (swapLock) {
+            if (filter == checked && addSequence == sequence) {
+                filter.remove(MemberCollation.key(username));
+            }
+        }
+    }
+
+    private boolean existsInDatabase(String username) {
+        return queryFactory
+                .selectOne()
+                .from(member)
+                .where(member.username.eq(username))
+                .fetchFirst() != null;
+    }
+}
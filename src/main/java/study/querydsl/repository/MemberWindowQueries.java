@@ -0,0 +1,42 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberTeamDto;
+
+//JPAExpressions 서브쿼리(최대/평균 나이 비교) 대신 윈도우 함수로 테이블을 한 번만 읽는 네이티브 쿼리
+//(QueryDSL JPA 는 over() 절을 지원하지 않아서 네이티브 SQL 사용, MySQL 8 / H2 공통 문법)
+public abstract class MemberWindowQueries {
+
+    //팀별 나이 상위 N 명 - row_number() over (partition by team)
+    public static final String TOP_BY_AGE_PER_TEAM =
+            "select r.member_id, r.username, r.age, r.team_id, r.team_name" +
+            " from (select m.member_id, m.username, m.age, t.id as team_id, t.name as team_name," +
+            "              row_number() over (partition by t.id order by m.age desc, m.member_id) as rn" +
+            "       from member m join team t on t.id = m.team_id) r" +
+            " where r.rn <= :topN" +
+            " order by r.team_id, r.rn";
+
+    //나이가 평균 이상인 회원 - avg() over () 로 평균 서브쿼리를 따로 실행하지 않음
+    public static final String ABOVE_AVERAGE_AGE =
+            "select r.member_id, r.username, r.age, r.team_id, r.team_name" +
+            " from (select m.member_id, m.username, m.age, t.id as team_id, t.name as team_name," +
+            "              avg(m.age) over () as avg_age" +
+            "       from member m left join team t on t.id = m.team_id) r" +
+            " where r.age >= r.avg_age" +
+            " order by r.member_id";
+
+    private MemberWindowQueries() {
+    }
+
+    public static MemberTeamDto toDto(Object[] row) {
+        return new MemberTeamDto(
+                toLong(row[0]),
+                (String) row[1],
+                ((Number) row[2]).intValue(),
+                toLong(row[3]),
+                (String) row[4]);
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,357 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.repository.cache.MemberJdbcWriter;
+import study.querydsl.repository.event.MemberChangeEvent;
+import study.querydsl.repository.event.MemberChangeEventBus;
+import study.querydsl.repository.support.UnknownTeamException;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+//짧은 시간에 같은 회원의 나이/팀 변경이 몰릴 때 - 회원 id 별로 마지막 값만 남겨서(coalescing) 모아 두었다가
+//건수(batch-size) 또는 시간(flush-interval) 조건에서 JDBC batch update 한 번으로 반영 (write-behind)
+//- 잠금은 회원 id 로 나눈 stripe 단위라 서로 다른 회원 변경끼리는 경합이 적음
+//- durable 모드: 반영(커밋)될 때까지 호출자가 기다림 (flush-before-ack), 아니면 반환된 future 로 확인
+//  호출자가 트랜잭션 안이면 기다리지 않고 호출자 트랜잭션에서 바로 update (그 트랜잭션이 잡은 행 잠금을 flusher 가 기다리는 교착 방지)
+//- 팀 변경은 대기열에 넣기 전에 팀이 있는지 확인 - 없는 팀이면 보낸 호출자에게 바로 예외 (400)
+//- batch 가 실패하면 반으로 나눠 다시 시도 - 문제 있는 변경만 골라내서 나머지 회원의 변경까지 잃지 않음
+//  골라낸 변경은 다시 대기열로 (그 사이 같은 회원의 새 변경이 있으면 합침), max-attempts 번 실패하면 그 future 만 실패
+//- 종료(shutdown) 후 들어온 변경은 호출자 스레드에서 바로 반영
+//- modified_at 도 갱신 (저장된 username 인덱스 따라잡기 워터마크)
+//- 영속성 컨텍스트를 거치지 않으므로 이미 로딩된 Member 엔티티에는 반영되지 않음
+@Slf4j
+@Component
+public class MemberWriteBehindBuffer {
+
+    //어느 팀이 바뀌었는지 모르므로 검색 캐시는 MemberJdbcWriter 가 전체 무효화, 이벤트는 아래에서 직접 발행
+    private static final String UPDATE_SQL = "update member set age = coalesce(?, age), team_id = coalesce(?, team_id),"
+            + " modified_at = ? where member_id = ?";
+    private static final int[] UPDATE_TYPES = {Types.INTEGER, Types.BIGINT, Types.TIMESTAMP, Types.BIGINT};
+    private static final String TEAM_EXISTS_SQL = "select count(*) from team where id = ?";
+
+    private final Stripe[] stripes;
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final MemberJdbcWriter jdbcWriter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberChangeEventBus eventBus;
+    private final ScheduledExecutorService flusher;
+    private final int batchSize;
+    private final boolean durable;
+    private final int maxAttempts;
+    private final Counter receivedUpdates;
+    private final Counter writtenRows;
+    private final Counter retriedUpdates;
+    private final Counter failedUpdates;
+    private volatile boolean closed;
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<Long, PendingUpdate> pending = new HashMap<>();
+    }
+
+    private static final class PendingUpdate {
+        private Integer age;
+        private Long teamId;
+        private int attempts;
+        private final CompletableFuture<Void> flushed = new CompletableFuture<>();
+    }
+
+    public MemberWriteBehindBuffer(MemberJdbcWriter jdbcWriter,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MemberChangeEventBus eventBus,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${member.write-behind.stripes:16}") int stripeCount,
+                                   @Value("${member.write-behind.batch-size:500}") int batchSize,
+                                   @Value("${member.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                   @Value("${member.write-behind.durable:false}") boolean durable,
+                                   @Value("${member.write-behind.max-attempts:3}") int maxAttempts) {
+        this.jdbcWriter = jdbcWriter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventBus = eventBus;
+        this.batchSize = batchSize;
+        this.durable = durable;
+        this.maxAttempts = maxAttempts;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        this.receivedUpdates = Counter.builder("member.write-behind.updates")
+                .description("Member updates accepted by the write-behind buffer")
+                .register(meterRegistry);
+        this.writtenRows = Counter.builder("member.write-behind.rows")
+                .description("Member rows updated by write-behind flushes")
+                .register(meterRegistry);
+        this.retriedUpdates = Counter.builder("member.write-behind.retries")
+                .description("Member updates re-queued after a failed flush")
+                .register(meterRegistry);
+        this.failedUpdates = Counter.builder("member.write-behind.failures")
+                .description("Member updates given up after max-attempts failed flushes")
+                .register(meterRegistry);
+        //받은 변경 수 / 실제 update 된 행 수 (클수록 많이 합쳐짐)
+        Gauge.builder("member.write-behind.coalescing.ratio", this,
+                        buffer -> buffer.writtenRows.count() == 0 ? 1.0
+                                : buffer.receivedUpdates.count() / buffer.writtenRows.count())
+                .register(meterRegistry);
+        Gauge.builder("member.write-behind.pending", pendingCount, AtomicInteger::get)
+                .register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("member-write-behind-"));
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public CompletableFuture<Void> updateAge(Long memberId, int age) {
+        return enqueue(memberId, age, null);
+    }
+
+    public CompletableFuture<Void> changeTeam(Long memberId, Long teamId) {
+        //flush 때 FK 위반으로 실패하면 이미 응답이 나간 뒤(202)라 호출자가 알 수 없음 - 받을 때 확인
+        //(확인 후 팀이 삭제되는 경우는 아래 flush 에서 그 변경만 골라내서 실패 처리)
+        Integer teams = jdbcTemplate.queryForObject(TEAM_EXISTS_SQL, Integer.class, teamId);
+        if (teams == null || teams == 0) {
+            throw new UnknownTeamException(teamId);
+        }
+        return enqueue(memberId, null, teamId);
+    }
+
+    private CompletableFuture<Void> enqueue(Long memberId, Integer age, Long teamId) {
+        receivedUpdates.increment();
+        if (durable && TransactionSynchronizationManager.isActualTransactionActive()) {
+            return writeInCallerTransaction(memberId, age, teamId);
+        }
+
+        Stripe stripe = stripes[Math.floorMod(Long.hashCode(memberId), stripes.length)];
+        PendingUpdate update;
+        stripe.lock.lock();
+        try {
+            update = stripe.pending.get(memberId);
+            if (update == null) {
+                update = new PendingUpdate();
+                stripe.pending.put(memberId, update);
+                pendingCount.incrementAndGet();
+            }
+            //같은 회원의 이전 변경은 마지막 값으로 덮어씀
+            if (age != null) {
+                update.age = age;
+            }
+            if (teamId != null) {
+                update.teamId = teamId;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        //대기열에 넣은 뒤에 확인 - 여기서 false 를 봤다면 shutdown 의 마지막 flush 가 이 변경을 가져감
+        if (closed) {
+            flushQuietly();
+            return update.flushed;
+        }
+        if (durable || pendingCount.get() >= batchSize) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                flushQuietly(); //종료 중
+            }
+        }
+        if (durable) {
+            //반영될 때까지 대기 - 동시에 들어온 변경들은 같은 flush 에 묶임 (group commit)
+            update.flushed.join();
+        }
+        return update.flushed;
+    }
+
+    //durable + 호출자 트랜잭션 - 호출자 트랜잭션과 함께 커밋/롤백 (이벤트도 커밋 후 발행)
+    private CompletableFuture<Void> writeInCallerTransaction(Long memberId, Integer age, Long teamId) {
+        PendingUpdate update = new PendingUpdate();
+        update.age = age;
+        update.teamId = teamId;
+        int[] counts = jdbcWriter.batchUpdate(UPDATE_SQL,
+                List.<Object[]>of(new Object[]{age, teamId, Timestamp.from(Instant.now()), memberId}), UPDATE_TYPES);
+        int written = updatedRows(counts[0]);
+        if (written > 0) {
+            eventBus.publish(toEvent(memberId, update));
+        }
+        writtenRows.increment(written);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    //flusher 스레드, 종료 후에는 호출자 스레드에서도 호출 - flushLock 으로 한 번에 하나씩 (같은 회원 변경 순서 유지)
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        Map<Long, PendingUpdate> drained = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                if (!stripe.pending.isEmpty()) {
+                    drained.putAll(stripe.pending);
+                    stripe.pending = new HashMap<>();
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        pendingCount.addAndGet(-drained.size());
+
+        List<Map.Entry<Long, PendingUpdate>> entries = new ArrayList<>(drained.entrySet());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            writeOrSplit(entries.subList(from, Math.min(entries.size(), from + batchSize)));
+        }
+    }
+
+    //batch 하나가 한 트랜잭션 - 실패하면 반씩 나눠서 다시 (잘못된 변경 하나가 있으면 약 2·log2(batch) 번 더 시도)
+    //한 건짜리도 실패하면 그 변경만 다시 대기열로
+    private void writeOrSplit(List<Map.Entry<Long, PendingUpdate>> batch) {
+        try {
+            writtenRows.increment(writeBatch(batch));
+            batch.forEach(entry -> entry.getValue().flushed.complete(null));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                Map.Entry<Long, PendingUpdate> entry = batch.get(0);
+                log.warn("member write-behind update for member {} failed, re-queueing", entry.getKey(), e);
+                requeue(entry.getKey(), entry.getValue(), e);
+                return;
+            }
+            log.warn("member write-behind flush of {} updates failed, retrying in halves", batch.size(), e);
+            int half = batch.size() / 2;
+            writeOrSplit(batch.subList(0, half));
+            writeOrSplit(batch.subList(half, batch.size()));
+        }
+    }
+
+    private int writeBatch(List<Map.Entry<Long, PendingUpdate>> batch) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> args = batch.stream()
+                .map(entry -> new Object[]{entry.getValue().age, entry.getValue().teamId, now, entry.getKey()})
+                .toList();
+        Integer written = transactionTemplate.execute(status -> {
+            int[] counts = jdbcWriter.batchUpdate(UPDATE_SQL, args, UPDATE_TYPES);
+            int rows = 0;
+            for (int i = 0; i < counts.length; i++) {
+                int updated = updatedRows(counts[i]);
+                if (updated > 0) {
+                    rows += updated;
+                    //없는 회원(이미 삭제)은 이벤트 없음
+                    eventBus.publish(toEvent(batch.get(i).getKey(), batch.get(i).getValue())); //커밋 후 발행
+                }
+            }
+            return rows;
+        });
+        return written == null ? 0 : written;
+    }
+
+    //드라이버가 행 수를 알려주지 않으면(SUCCESS_NO_INFO) 한 행으로
+    private static int updatedRows(int count) {
+        return count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+    }
+
+    //실패한 변경을 다시 대기열로 - 그 사이 같은 회원의 새 변경이 들어왔으면 새 값 우선으로 합치고 future 를 이어 줌
+    private void requeue(Long memberId, PendingUpdate failed, RuntimeException cause) {
+        failed.attempts++;
+        if (closed || failed.attempts >= maxAttempts) {
+            log.error("member write-behind update for member {} dropped after {} attempts", memberId, failed.attempts);
+            failedUpdates.increment();
+            failed.flushed.completeExceptionally(cause);
+            return;
+        }
+        retriedUpdates.increment();
+        Stripe stripe = stripes[Math.floorMod(Long.hashCode(memberId), stripes.length)];
+        stripe.lock.lock();
+        try {
+            PendingUpdate newer = stripe.pending.get(memberId);
+            if (newer == null) {
+                stripe.pending.put(memberId, failed);
+                pendingCount.incrementAndGet();
+                return;
+            }
+            if (newer.age == null) {
+                newer.age = failed.age;
+            }
+            if (newer.teamId == null) {
+                newer.teamId = failed.teamId;
+            }
+            newer.attempts = Math.max(newer.attempts, failed.attempts);
+            newer.flushed.whenComplete((ignored, error) -> {
+                if (error == null) {
+                    failed.flushed.complete(null);
+                } else {
+                    failed.flushed.completeExceptionally(error);
+                }
+            });
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private MemberChangeEvent toEvent(Long memberId, PendingUpdate update) {
+        Map<String, Object> values = new HashMap<>();
+        if (update.age != null) {
+            values.put("age", update.age);
+        }
+        if (update.teamId != null) {
+            values.put("teamId", update.teamId);
+        }
+        return new MemberChangeEvent(MemberChangeEvent.Type.UPDATE, MemberChangeEvent.Entity.MEMBER, memberId,
+                update.teamId, null, Set.copyOf(values.keySet()), values, Map.of(), null);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("member write-behind flush failed", e);
+        }
+    }
+
+    public int pending() {
+        return pendingCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        closed = true;
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush(); //남은 변경 반영 (이후 들어오는 변경은 호출자 스레드에서 바로)
+    }
+}
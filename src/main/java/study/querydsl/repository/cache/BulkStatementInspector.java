@@ -0,0 +1,86 @@
+package study.querydsl.repository.cache;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import study.querydsl.repository.event.MemberChangeEvent;
+import study.querydsl.repository.event.MemberChangeEventBus;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//QueryDSL/JPQL 벌크 update, delete 는 영속성 컨텍스트와 엔티티 이벤트를 거치지 않으므로 SQL 로 감지
+//엔티티 단건 update/delete 만 제외 - 별칭이 없고 where 절이 기본 키 하나 비교("... where member_id=?")인 문장
+//그 밖의 member/team update, delete 는 별칭 유무와 관계없이 벌크 연산으로 봄 (native 쿼리 포함)
+//JdbcTemplate 으로 직접 쓰는 SQL 은 여기를 거치지 않으므로 MemberJdbcWriter 로 무효화
+//감지한 벌크 연산은 대상 테이블, set 컬럼, where 절을 담아 이벤트 버스에도 발행
+public class BulkStatementInspector implements StatementInspector {
+
+    private static final Pattern BULK_DML = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)*(update|delete\\s+from)\\s+(member|team)(?:\\s+(?!set\\b|where\\b)(\\w+))?"
+                    + "(?:\\s+set\\s+(.*?))?(?:\\s+where\\s+(.*))?$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Map<String, Pattern> PRIMARY_KEY_WHERE = Map.of(
+            "member", Pattern.compile("^\\s*member_id\\s*=\\s*\\?\\s*$", Pattern.CASE_INSENSITIVE),
+            "team", Pattern.compile("^\\s*id\\s*=\\s*\\?\\s*$", Pattern.CASE_INSENSITIVE));
+    private static final Pattern SET_COLUMN = Pattern.compile("(?:^|,)\\s*(?:\\w+\\.)?(\\w+)\\s*=");
+
+    private final MemberWriteVersions writeVersions;
+    private final MemberChangeEventBus eventBus;
+
+    public BulkStatementInspector(MemberWriteVersions writeVersions, MemberChangeEventBus eventBus) {
+        this.writeVersions = writeVersions;
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Matcher matcher = BULK_DML.matcher(sql);
+        if (matcher.find() && !isEntityStatement(matcher)) {
+            writeVersions.allChanged();
+            eventBus.publish(toEvent(matcher));
+        }
+        return sql;
+    }
+
+    private static boolean isEntityStatement(Matcher matcher) {
+        String where = matcher.group(5);
+        return matcher.group(3) == null && where != null
+                && PRIMARY_KEY_WHERE.get(matcher.group(2).toLowerCase()).matcher(where).matches();
+    }
+
+    private MemberChangeEvent toEvent(Matcher matcher) {
+        boolean update = matcher.group(1).toLowerCase().startsWith("update");
+        MemberChangeEvent.Entity entity = matcher.group(2).equalsIgnoreCase("member")
+                ? MemberChangeEvent.Entity.MEMBER : MemberChangeEvent.Entity.TEAM;
+        Set<String> columns = new LinkedHashSet<>();
+        if (update && matcher.group(4) != null) {
+            Matcher column = SET_COLUMN.matcher(matcher.group(4));
+            while (column.find()) {
+                columns.add(toProperty(column.group(1)));
+            }
+        }
+        return MemberChangeEvent.bulk(update ? MemberChangeEvent.Type.BULK_UPDATE : MemberChangeEvent.Type.BULK_DELETE,
+                entity, Set.copyOf(columns), matcher.group(5));
+    }
+
+    //컬럼명을 엔티티 이벤트와 같은 이름으로 (team_id -> teamId, member_id -> id)
+    private static String toProperty(String column) {
+        String lower = column.toLowerCase();
+        if (lower.equals("member_id")) {
+            return "id";
+        }
+        StringBuilder property = new StringBuilder();
+        boolean upper = false;
+        for (char c : lower.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                property.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return property.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.repository.cache;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.event.MemberChangeEventBus;
+
+@Configuration
+public class MemberCacheConfig {
+
+    //벌크 연산 감지용 StatementInspector 를 EntityManagerFactory 생성 전에 등록
+    @Bean
+    HibernatePropertiesCustomizer bulkStatementInspectorCustomizer(MemberWriteVersions writeVersions,
+                                                                MemberChangeEventBus eventBus) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new BulkStatementInspector(writeVersions, eventBus));
+    }
+}
@@ -0,0 +1,181 @@
+package study.querydsl.repository.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.event.MemberChangeEvent;
+import study.querydsl.repository.event.MemberChangeEventBus;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+//em.persist, 엔티티 setter(dirty checking), Member.changeTeam, em.remove 로 인한 Member/Team 변경을 받아서 쓰기 버전 증가
+//같은 변경을 MemberChangeEvent 로 만들어 이벤트 버스에도 발행 (커밋 후 전달)
+//벌크 update/delete 는 Hibernate 이벤트가 없어서 BulkStatementInspector 가 담당
+@Component
+@RequiredArgsConstructor
+public class MemberEntityChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final MemberWriteVersions writeVersions;
+    private final MemberChangeEventBus eventBus;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        //새 팀은 아직 회원이 없으므로 검색 결과에 영향 없음
+        if (event.getEntity() instanceof Member member) {
+            teamScopeChanged(member.getTeam());
+        }
+        Map<String, Object> values = values(event.getPersister(), event.getState(), null);
+        publish(MemberChangeEvent.Type.INSERT, event.getEntity(), event.getId(), values.keySet(), values, Map.of(), null);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            //팀이 바뀌었으면 이전 팀 검색 결과도 무효화
+            Object oldTeam = oldValue(event.getPersister(), event.getOldState(), "team");
+            if (oldTeam != member.getTeam()) {
+                teamScopeChanged(oldTeam);
+            }
+            teamScopeChanged(member.getTeam());
+        } else if (event.getEntity() instanceof Team team) {
+            //팀 이름 변경 - 이전 이름/새 이름 조건 검색 모두 무효화
+            Object oldName = oldValue(event.getPersister(), event.getOldState(), "name");
+            if (oldName instanceof String name) {
+                writeVersions.teamScopeChanged(name);
+            }
+            writeVersions.teamScopeChanged(team.getName());
+        }
+        int[] dirty = dirtyProperties(event);
+        Map<String, Object> values = values(event.getPersister(), event.getState(), dirty);
+        Map<String, Object> previousValues = values(event.getPersister(), event.getOldState(), dirty);
+        Object previousTeam = event.getEntity() instanceof Member
+                ? oldValue(event.getPersister(), event.getOldState(), "team") : null;
+        publish(MemberChangeEvent.Type.UPDATE, event.getEntity(), event.getId(), values.keySet(), values, previousValues, previousTeam);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            teamScopeChanged(member.getTeam());
+        } else if (event.getEntity() instanceof Team team) {
+            writeVersions.teamScopeChanged(team.getName());
+        }
+        Map<String, Object> previousValues = values(event.getPersister(), event.getDeletedState(), null);
+        publish(MemberChangeEvent.Type.DELETE, event.getEntity(), event.getId(), Set.of(), Map.of(), previousValues, null);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void teamScopeChanged(Object team) {
+        if (team == null) {
+            writeVersions.teamScopeChanged(null);
+        } else if (!Hibernate.isInitialized(team)) {
+            //지연 로딩 프록시라 팀 이름을 모르면 전체 무효화 (flush 중에 프록시를 초기화하지 않음)
+            writeVersions.allChanged();
+        } else {
+            writeVersions.teamScopeChanged(((Team) team).getName());
+        }
+    }
+
+    private Object oldValue(EntityPersister persister, Object[] oldState, String property) {
+        if (oldState == null) {
+            return null;
+        }
+        int index = Arrays.asList(persister.getPropertyNames()).indexOf(property);
+        return index < 0 ? null : oldState[index];
+    }
+
+    private void publish(MemberChangeEvent.Type type, Object entity, Object id, Set<String> changedFields,
+                         Map<String, Object> values, Map<String, Object> previousValues, Object previousTeam) {
+        MemberChangeEvent.Entity kind;
+        Long teamId;
+        if (entity instanceof Member member) {
+            kind = MemberChangeEvent.Entity.MEMBER;
+            teamId = teamId(member.getTeam());
+        } else if (entity instanceof Team) {
+            kind = MemberChangeEvent.Entity.TEAM;
+            teamId = (Long) id;
+        } else {
+            return;
+        }
+        Long previousTeamId = changedFields.contains("teamId") ? teamId(previousTeam) : teamId;
+        eventBus.publish(new MemberChangeEvent(type, kind, (Long) id, teamId, previousTeamId,
+                Set.copyOf(changedFields), values, previousValues, null));
+    }
+
+    //dirty checking 결과가 없으면(병합 등) 이전/현재 상태를 직접 비교
+    private int[] dirtyProperties(PostUpdateEvent event) {
+        if (event.getDirtyProperties() != null) {
+            return event.getDirtyProperties();
+        }
+        Object[] oldState = event.getOldState();
+        Object[] state = event.getState();
+        if (oldState == null) {
+            return null;
+        }
+        return IntStream.range(0, state.length)
+                .filter(i -> !Objects.equals(oldState[i], state[i]))
+                .toArray();
+    }
+
+    //프로퍼티 -> 값 (연관 엔티티는 "<이름>Id" -> id, 컬렉션은 제외), indexes 가 null 이면 전체
+    private Map<String, Object> values(EntityPersister persister, Object[] state, int[] indexes) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (state == null) {
+            return values;
+        }
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        int[] targets = indexes != null ? indexes : IntStream.range(0, names.length).toArray();
+        for (int i : targets) {
+            if (types[i].isCollectionType()) {
+                continue;
+            }
+            if (types[i].isEntityType()) {
+                values.put(names[i] + "Id", teamId(state[i]));
+            } else {
+                values.put(names[i], state[i]);
+            }
+        }
+        return values;
+    }
+
+    //프록시여도 식별자 getter 는 초기화하지 않음
+    private Long teamId(Object team) {
+        return team instanceof Team t ? t.getId() : null;
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.repository.cache;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+//JdbcTemplate 으로 member/team 테이블을 직접 쓰는 곳은 모두 여기를 거침
+//JDBC 는 Hibernate 엔티티 이벤트도 StatementInspector 도 거치지 않으므로 SQL 모양(별칭 유무)에 기대지 않고 여기서 직접 무효화
+//어느 팀 범위가 바뀌었는지 모르므로 전체 무효화 (일부만 반영되고 실패했을 수도 있으므로 실패해도)
+@Component
+public class MemberJdbcWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberWriteVersions writeVersions;
+
+    public MemberJdbcWriter(JdbcTemplate jdbcTemplate, MemberWriteVersions writeVersions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeVersions = writeVersions;
+    }
+
+    public int[] batchUpdate(String sql, List<Object[]> batchArgs, int[] argTypes) {
+        try {
+            return jdbcTemplate.batchUpdate(sql, batchArgs, argTypes);
+        } finally {
+            writeVersions.allChanged();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package study.querydsl.repository.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.EstimatedPageImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+//검색 결과 캐시 (Caffeine = W-TinyLFU 교체 정책), 크기 제한은 건수가 아니라 추정 바이트
+//캐시에 넣을 때의 쓰기 버전과 현재 쓰기 버전이 다르면 stale 로 보고 다시 조회
+//히트율/교체(eviction)는 cache.* 메트릭, stale 감지는 member.search.cache.stale 메트릭
+//MemberTeamDto 는 @Data(변경 가능)라 넣을 때 복사본을 저장하고, 꺼낼 때마다 수정 불가 목록 + DTO 복사본을 돌려줌
+@Component
+public class MemberSearchCache {
+
+    private final Cache<MemberSearchKey, Entry> cache;
+    private final MemberWriteVersions writeVersions;
+    private final Counter staleCounter;
+    private final boolean enabled;
+    private final ThreadLocal<Boolean> bypassed = new ThreadLocal<>();
+
+    private record Entry(Object value, MemberWriteVersions.Snapshot versions, int weight) {
+    }
+
+    public MemberSearchCache(MemberWriteVersions writeVersions,
+                             MeterRegistry meterRegistry,
+                             @Value("${member.cache.enabled:true}") boolean enabled,
+                             @Value("${member.cache.max-bytes:67108864}") long maxBytes) {
+        this.writeVersions = writeVersions;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((MemberSearchKey key, Entry entry) -> entry.weight())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberSearch");
+        this.staleCounter = Counter.builder("member.search.cache.stale")
+                .description("Cached member search results rejected because of a newer write version")
+                .register(meterRegistry);
+        Gauge.builder("member.search.cache.weighted.bytes", cache, c -> c.policy().eviction()
+                        .map(eviction -> (double) eviction.weightedSize().orElse(0L))
+                        .orElse(0.0))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public <T> T get(MemberSearchKey key, Supplier<T> loader) {
+        //쓰기 트랜잭션 안에서는 아직 커밋 안 된 자기 변경을 봐야 하므로 캐시를 거치지 않음
+        if (!enabled || bypassed.get() != null || inReadWriteTransaction()) {
+            return loader.get();
+        }
+
+        T cached = cached(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        //조회 전에 버전을 찍어야 조회 도중 들어온 변경도 다음 조회에서 stale 로 걸러짐
+        MemberWriteVersions.Snapshot versions = writeVersions.snapshot(key.teamName());
+        T value = loader.get();
+        cache.put(key, new Entry(copyOf(value), versions, estimateBytes(value)));
+        return value;
+    }
+
+    //여러 키를 한 번에 - 없거나 stale 인 키만 모아서 loader 한 번으로 조회 (묶음 검색을 한 문장으로)
+    //loader 는 못 찾은 키의 위치(keys 기준) 목록을 받아 같은 순서로 결과를 돌려줌
+    public <T> List<T> getAll(List<MemberSearchKey> keys, Function<List<Integer>, List<T>> loader) {
+        if (!enabled || bypassed.get() != null || inReadWriteTransaction()) {
+            return loader.apply(IntStream.range(0, keys.size()).boxed().toList());
+        }
+
+        List<T> values = new ArrayList<>(Collections.nCopies(keys.size(), null));
+        List<Integer> misses = new ArrayList<>();
+        List<MemberWriteVersions.Snapshot> versions = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            T cached = cached(keys.get(i));
+            if (cached != null) {
+                values.set(i, cached);
+            } else {
+                misses.add(i);
+                //get 과 같이 조회 전에 버전을 찍음
+                versions.add(writeVersions.snapshot(keys.get(i).teamName()));
+            }
+        }
+        if (misses.isEmpty()) {
+            return values;
+        }
+        List<T> loaded = loader.apply(misses);
+        for (int i = 0; i < misses.size(); i++) {
+            T value = loaded.get(i);
+            cache.put(keys.get(misses.get(i)), new Entry(copyOf(value), versions.get(i), estimateBytes(value)));
+            values.set(misses.get(i), value);
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(MemberSearchKey key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (writeVersions.isCurrent(entry.versions())) {
+            return (T) copyOf(entry.value());
+        }
+        staleCounter.increment();
+        cache.invalidate(key);
+        return null;
+    }
+
+    //워밍업처럼 실제 조회 시간을 재야 하는 호출 - 이 스레드에서는 캐시를 읽지도 채우지도 않음
+    public void bypass(Runnable work) {
+        Boolean previous = bypassed.get();
+        bypassed.set(Boolean.TRUE);
+        try {
+            work.run();
+        } finally {
+            if (previous == null) {
+                bypassed.remove();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    //Page/List 는 내용을 복사한 수정 불가 목록으로 (EstimatedPageImpl 은 추정 여부 유지)
+    static Object copyOf(Object value) {
+        if (value instanceof EstimatedPageImpl<?> page) {
+            return new EstimatedPageImpl<>(copyContent(page.getContent()), page.getPageable(),
+                    page.getTotalElements(), page.isExactTotal());
+        }
+        if (value instanceof Page<?> page) {
+            return new PageImpl<>(copyContent(page.getContent()), page.getPageable(), page.getTotalElements());
+        }
+        if (value instanceof List<?> list) {
+            return copyContent(list);
+        }
+        return value;
+    }
+
+    private static List<Object> copyContent(List<?> content) {
+        List<Object> copy = new ArrayList<>(content.size());
+        for (Object element : content) {
+            if (element instanceof MemberTeamDto dto) {
+                copy.add(new MemberTeamDto(dto.getMemberId(), dto.getUsername(), dto.getAge(),
+                        dto.getTeamId(), dto.getTeamName()));
+            } else {
+                copy.add(element);
+            }
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    //대략적인 힙 사용량: 키/엔트리/Page 오버헤드 + DTO(객체 + Long 2개 + 문자열 2개) 크기
+    static int estimateBytes(Object value) {
+        Collection<?> content = value instanceof Page<?> page ? page.getContent()
+                : value instanceof Collection<?> collection ? collection
+                : null;
+        long bytes = 256;
+        if (content != null) {
+            for (Object element : content) {
+                bytes += 16;
+                if (element instanceof MemberTeamDto dto) {
+                    bytes += 40 + 2 * 16 + stringBytes(dto.getUsername()) + stringBytes(dto.getTeamName());
+                }
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static int stringBytes(String value) {
+        return value == null ? 0 : 40 + value.length() * 2;
+    }
+}
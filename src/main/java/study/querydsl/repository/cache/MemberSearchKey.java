@@ -0,0 +1,32 @@
+package study.querydsl.repository.cache;
+
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.springframework.util.StringUtils.hasText;
+
+//검색 결과 캐시 키 - 같은 결과가 나오는 조건은 같은 키가 되도록 정규화 (빈 문자열 = 조건 없음)
+public record MemberSearchKey(String query,
+                              String username,
+                              String teamName,
+                              Integer ageGoe,
+                              Integer ageLoe,
+                              long offset,
+                              int pageSize,
+                              String sort) {
+
+    public static MemberSearchKey of(String query, MemberSearchCondition condition) {
+        return of(query, condition, Pageable.unpaged());
+    }
+
+    public static MemberSearchKey of(String query, MemberSearchCondition condition, Pageable pageable) {
+        return new MemberSearchKey(query,
+                hasText(condition.getUsername()) ? condition.getUsername() : null,
+                hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe(),
+                pageable.isPaged() ? pageable.getOffset() : -1L,
+                pageable.isPaged() ? pageable.getPageSize() : -1,
+                pageable.getSort().toString());
+    }
+}
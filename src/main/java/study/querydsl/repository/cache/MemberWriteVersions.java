@@ -0,0 +1,99 @@
+package study.querydsl.repository.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//검색 결과 캐시 무효화용 쓰기 버전
+//- 팀별 버전: 그 팀 회원/팀 이름이 바뀌면 증가 (teamName 조건 검색 결과 무효화)
+//- 회원 버전: 어떤 회원/팀이든 바뀌면 증가 (teamName 조건 없는 검색 결과 무효화)
+//- 전체 버전: 벌크 update/delete 처럼 범위를 모르는 변경이면 증가 (모든 결과 무효화)
+//flush 시점에 한 번, 커밋/롤백 후에 한 번 더 증가 -> 커밋 전에 다른 트랜잭션이 옛 데이터로 채운 캐시도 무효화
+@Component
+public class MemberWriteVersions {
+
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final AtomicLong memberVersion = new AtomicLong();
+    private final Map<String, AtomicLong> teamVersions = new ConcurrentHashMap<>();
+
+    public record Snapshot(String teamName, long global, long scope) {
+    }
+
+    //검색 전에 찍어두고, 캐시에서 꺼낼 때 isCurrent 로 비교
+    public Snapshot snapshot(String teamName) {
+        return new Snapshot(teamName, globalVersion.get(), scopeVersion(teamName));
+    }
+
+    public boolean isCurrent(Snapshot snapshot) {
+        return snapshot.global() == globalVersion.get()
+                && snapshot.scope() == scopeVersion(snapshot.teamName());
+    }
+
+    //teamName 팀(null 이면 팀 없는 회원)의 회원 또는 팀 자체가 바뀜
+    public void teamScopeChanged(String teamName) {
+        bumpTeamScope(teamName);
+        PendingBumps pending = pendingBumps();
+        if (pending != null) {
+            pending.teams.add(teamName);
+        }
+    }
+
+    //어느 팀이 바뀌었는지 알 수 없는 변경 (벌크 연산 등)
+    public void allChanged() {
+        globalVersion.incrementAndGet();
+        PendingBumps pending = pendingBumps();
+        if (pending != null) {
+            pending.global = true;
+        }
+    }
+
+    private long scopeVersion(String teamName) {
+        return teamName == null ? memberVersion.get() : teamVersion(teamName).get();
+    }
+
+    private AtomicLong teamVersion(String teamName) {
+        return teamVersions.computeIfAbsent(teamName, name -> new AtomicLong());
+    }
+
+    private void bumpTeamScope(String teamName) {
+        if (teamName != null) {
+            teamVersion(teamName).incrementAndGet();
+        }
+        memberVersion.incrementAndGet();
+    }
+
+    //트랜잭션 안이면 트랜잭션마다 하나씩 등록해서 완료 후 한 번 더 증가
+    private PendingBumps pendingBumps() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        PendingBumps pending = (PendingBumps) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingBumps();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private final class PendingBumps implements TransactionSynchronization {
+
+        private final Set<String> teams = new HashSet<>();
+        private boolean global;
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MemberWriteVersions.this);
+            teams.forEach(MemberWriteVersions.this::bumpTeamScope);
+            if (global) {
+                globalVersion.incrementAndGet();
+            }
+        }
+    }
+}
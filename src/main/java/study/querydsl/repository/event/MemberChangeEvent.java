@@ -0,0 +1,39 @@
+package study.querydsl.repository.event;
+
+import java.util.Map;
+import java.util.Set;
+
+//커밋된 Member/Team 변경 한 건
+//- 엔티티 변경(INSERT/UPDATE/DELETE): id, 회원의 팀 id(이전 팀 id), 바뀐 필드와 새 값/이전 값
+//  (write-behind 처럼 JDBC 로 바로 반영한 변경은 teamId 를 모르면 null)
+//- 벌크 변경(BULK_UPDATE/BULK_DELETE): 대상 행을 모르므로 id 는 null, statement 에 where 절(바인딩 전 SQL)
+public record MemberChangeEvent(Type type,
+                                Entity entity,
+                                Long id,
+                                Long teamId,
+                                Long previousTeamId,
+                                Set<String> changedFields,
+                                Map<String, Object> values,
+                                Map<String, Object> previousValues,
+                                String statement) {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE, BULK_UPDATE, BULK_DELETE
+    }
+
+    public enum Entity {
+        MEMBER, TEAM
+    }
+
+    public boolean isBulk() {
+        return type == Type.BULK_UPDATE || type == Type.BULK_DELETE;
+    }
+
+    public boolean changed(String field) {
+        return changedFields.contains(field);
+    }
+
+    public static MemberChangeEvent bulk(Type type, Entity entity, Set<String> changedFields, String predicate) {
+        return new MemberChangeEvent(type, entity, null, null, null, changedFields, Map.of(), Map.of(), predicate);
+    }
+}
@@ -0,0 +1,136 @@
+package study.querydsl.repository.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.repository.support.RingBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+//Member/Team 변경 이벤트 버스 (트랜잭셔널 아웃박스처럼 커밋된 변경만 발행)
+//- 트랜잭션 안에서 받은 이벤트는 모아 두었다가 afterCommit 에 발행, 롤백이면 버림
+//- 발행은 락 없는 링 버퍼에 기록만 하므로 커밋 스레드를 막지 않음
+//- 구독자마다 전용 스레드가 링 버퍼를 따라가며 전달, 밀려서 덮어쓰이면 onOverrun
+//프로세스 내 메모리 버퍼라서 재시작하면 발행 전/전달 전 이벤트는 사라짐
+@Slf4j
+@Component
+public class MemberChangeEventBus {
+
+    private final RingBuffer<MemberChangeEvent> ringBuffer;
+    private final List<SubscriberThread> subscribers = new CopyOnWriteArrayList<>();
+    private final MeterRegistry meterRegistry;
+    private final Counter published;
+    private final Counter overruns;
+
+    public MemberChangeEventBus(MeterRegistry meterRegistry,
+                                @Value("${member.events.buffer-size:8192}") int bufferSize) {
+        this.ringBuffer = new RingBuffer<>(bufferSize);
+        this.meterRegistry = meterRegistry;
+        this.published = Counter.builder("member.events.published").register(meterRegistry);
+        this.overruns = Counter.builder("member.events.overruns")
+                .description("Change events lost by slow subscribers")
+                .register(meterRegistry);
+    }
+
+    public void publish(MemberChangeEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishNow(event);
+            return;
+        }
+        PendingEvents pending = (PendingEvents) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEvents();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.events.add(event);
+    }
+
+    public void subscribe(String name, MemberChangeSubscriber subscriber) {
+        SubscriberThread thread = new SubscriberThread(name, subscriber, ringBuffer.cursor());
+        Gauge.builder("member.events.lag", thread, t -> t.cursor.lag())
+                .tag("subscriber", name)
+                .register(meterRegistry);
+        subscribers.add(thread);
+        thread.start();
+    }
+
+    private void publishNow(MemberChangeEvent event) {
+        ringBuffer.publish(event);
+        published.increment();
+        subscribers.forEach(SubscriberThread::wakeUp);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(SubscriberThread::interrupt);
+    }
+
+    private final class PendingEvents implements TransactionSynchronization {
+
+        private final List<MemberChangeEvent> events = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            events.forEach(MemberChangeEventBus.this::publishNow);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MemberChangeEventBus.this);
+        }
+    }
+
+    private final class SubscriberThread extends Thread {
+
+        private final MemberChangeSubscriber subscriber;
+        private final RingBuffer<MemberChangeEvent>.Cursor cursor;
+
+        private SubscriberThread(String name, MemberChangeSubscriber subscriber, RingBuffer<MemberChangeEvent>.Cursor cursor) {
+            super("member-events-" + name);
+            setDaemon(true);
+            this.subscriber = subscriber;
+            this.cursor = cursor;
+        }
+
+        private void wakeUp() {
+            LockSupport.unpark(this);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                MemberChangeEvent event = cursor.poll(this::overrun);
+                if (event == null) {
+                    //발행 시 unpark 되므로 대기 시간은 놓친 깨움에 대한 안전장치
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                    continue;
+                }
+                try {
+                    subscriber.onChange(event);
+                } catch (RuntimeException e) {
+                    log.error("member change subscriber {} failed on {}", getName(), event, e);
+                }
+            }
+        }
+
+        private void overrun(long lost) {
+            overruns.increment(lost);
+            try {
+                subscriber.onOverrun(lost);
+            } catch (RuntimeException e) {
+                log.error("member change subscriber {} failed on overrun", getName(), e);
+            }
+        }
+    }
+}
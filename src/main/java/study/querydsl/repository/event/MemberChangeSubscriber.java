@@ -0,0 +1,11 @@
+package study.querydsl.repository.event;
+
+//MemberChangeEventBus 구독자 - 구독자마다 전용 스레드에서 커밋 순서대로 호출됨
+public interface MemberChangeSubscriber {
+
+    void onChange(MemberChangeEvent event);
+
+    //처리가 밀려서 이벤트를 놓침 -> 파생 데이터 전체를 다시 만들어야 함
+    default void onOverrun(long lost) {
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydsl.repository.plan;
+
+import java.util.List;
+
+//검색 한 번의 실행 계획 - 어떤 전략을 골랐고 왜 골랐는지 (explain 응답으로 그대로 내려감)
+public record MemberSearchPlan(Access access,
+                               Paging paging,
+                               Count count,
+                               long estimatedRows,
+                               List<String> reasons) {
+
+    //어느 테이블에서 출발할지
+    public enum Access {
+        //member 에서 출발 + team left join (username/age 인덱스)
+        MEMBER,
+        //teamName 이 가장 선택도가 높으면 team 에서 출발하도록 inner join (옵티마이저가 조인 순서를 바꿀 수 있게)
+        TEAM
+    }
+
+    //페이지를 어떻게 자를지
+    public enum Paging {
+        //offset/limit
+        OFFSET,
+        //id 만 읽는 커버링 인덱스 조회로 시작 id 를 찾고 id >= 시작 id 로 읽음 (깊은 offset 에서 조인/행 읽기를 건너뜀)
+        KEYSET,
+        //결과가 작으면 한 번에 다 읽고 메모리에서 페이지/전체 개수 계산 (count 쿼리 없음)
+        IN_MEMORY
+    }
+
+    //전체 개수를 어떻게 구할지
+    public enum Count {
+        //결과가 많을 것 같으면 count 를 내용 조회와 병렬로
+        EXACT,
+        //첫/마지막 페이지가 pageSize 보다 짧으면 count 생략 (PageableExecutionUtils)
+        SKIP_IF_SHORT,
+        //IN_MEMORY - 읽은 결과 수가 곧 전체 개수
+        FROM_RESULT
+    }
+}
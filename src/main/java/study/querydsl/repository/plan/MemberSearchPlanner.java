@@ -0,0 +1,151 @@
+package study.querydsl.repository.plan;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.util.StringUtils.hasText;
+
+//검색 조건 + 페이지 -> 실행 계획 (MemberStatistics 의 추정치로 선택도 계산)
+//- 조건마다 선택도 = 추정 행 수 / 전체 행 수, 조건끼리는 독립이라고 가정하고 곱함
+//- 추정 결과가 작으면 IN_MEMORY, 깊은 offset + id 순서면 KEYSET, 나머지는 OFFSET
+//- teamName 이 username/age 조건보다 선택도가 높으면 team 에서 출발
+//- 통계가 아직 없으면 기존과 같은 계획 (member 출발, offset, 짧은 페이지면 count 생략)
+@Component
+public class MemberSearchPlanner {
+
+    private static final Set<String> ID_PROPERTIES = Set.of("id", "memberId");
+
+    private final MemberStatistics statistics;
+    private final MeterRegistry meterRegistry;
+    private final int inMemoryMaxRows;
+    private final long keysetMinOffset;
+
+    public MemberSearchPlanner(MemberStatistics statistics, MeterRegistry meterRegistry,
+                               @Value("${member.planner.in-memory-max-rows:500}") int inMemoryMaxRows,
+                               @Value("${member.planner.keyset-min-offset:1000}") long keysetMinOffset) {
+        this.statistics = statistics;
+        this.meterRegistry = meterRegistry;
+        this.inMemoryMaxRows = inMemoryMaxRows;
+        this.keysetMinOffset = keysetMinOffset;
+    }
+
+    //IN_MEMORY 계획에서 한 번에 읽을 최대 행 수 (넘으면 추정이 틀린 것 -> OFFSET 으로 다시)
+    public int inMemoryMaxRows() {
+        return inMemoryMaxRows;
+    }
+
+    //검색 실행용 - 고른 전략을 member.search.plans 로 집계
+    public MemberSearchPlan plan(MemberSearchCondition condition, Pageable pageable) {
+        return record(explain(condition, pageable));
+    }
+
+    //explain 응답용 - 집계 없이 계획만
+    public MemberSearchPlan explain(MemberSearchCondition condition, Pageable pageable) {
+        List<String> reasons = new ArrayList<>();
+        MemberStatistics.Snapshot stats = statistics.current();
+        if (stats == null) {
+            reasons.add("no statistics yet: default plan");
+            return new MemberSearchPlan(MemberSearchPlan.Access.MEMBER, MemberSearchPlan.Paging.OFFSET,
+                    MemberSearchPlan.Count.SKIP_IF_SHORT, -1L, reasons);
+        }
+
+        long total = stats.totalRows();
+        reasons.add("statistics: " + total + " members, " + stats.distinctUsernames() + " usernames, built at "
+                + stats.builtAt());
+
+        //username/age 조건만 적용한 추정 (member 인덱스로 처리되는 부분)
+        double memberSide = total;
+        if (hasText(condition.getUsername())) {
+            memberSide *= selectivity(stats.rowsPerUsername(), total);
+            reasons.add(String.format("username=%s: ~%.1f rows per username", condition.getUsername(),
+                    stats.rowsPerUsername()));
+        }
+        if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            long ageRows = stats.ageRows(condition.getAgeGoe(), condition.getAgeLoe());
+            memberSide *= selectivity(ageRows, total);
+            reasons.add("age in [" + condition.getAgeGoe() + ", " + condition.getAgeLoe() + "]: " + ageRows
+                    + " rows by age histogram");
+        }
+
+        double estimated = memberSide;
+        MemberSearchPlan.Access access = MemberSearchPlan.Access.MEMBER;
+        if (hasText(condition.getTeamName())) {
+            long teamRows = stats.teamRows(condition.getTeamName());
+            estimated *= selectivity(teamRows, total);
+            if (teamRows < memberSide) {
+                access = MemberSearchPlan.Access.TEAM;
+                reasons.add(String.format("teamName=%s: %d rows, more selective than member predicates (~%.0f): drive from team",
+                        condition.getTeamName(), teamRows, memberSide));
+            } else {
+                reasons.add(String.format("teamName=%s: %d rows, member predicates more selective (~%.0f): drive from member",
+                        condition.getTeamName(), teamRows, memberSide));
+            }
+        }
+        long estimatedRows = (long) Math.ceil(estimated);
+
+        if (pageable.isUnpaged()) {
+            reasons.add("unpaged: single query");
+            return new MemberSearchPlan(access, MemberSearchPlan.Paging.OFFSET,
+                    MemberSearchPlan.Count.FROM_RESULT, estimatedRows, reasons);
+        }
+
+        if (estimatedRows <= inMemoryMaxRows && pageable.getOffset() < inMemoryMaxRows) {
+            reasons.add("estimated " + estimatedRows + " rows <= " + inMemoryMaxRows
+                    + ": read all matches once, page and count in memory");
+            return new MemberSearchPlan(access, MemberSearchPlan.Paging.IN_MEMORY,
+                    MemberSearchPlan.Count.FROM_RESULT, estimatedRows, reasons);
+        }
+
+        MemberSearchPlan.Paging paging = MemberSearchPlan.Paging.OFFSET;
+        if (pageable.getOffset() >= keysetMinOffset) {
+            if (orderedById(pageable.getSort())) {
+                paging = MemberSearchPlan.Paging.KEYSET;
+                reasons.add("offset " + pageable.getOffset() + " >= " + keysetMinOffset
+                        + " and ordered by id: seek from boundary id found by index-only scan");
+            } else {
+                reasons.add("offset " + pageable.getOffset() + " is deep but sorted by " + pageable.getSort()
+                        + ": keyset needs id order, using offset");
+            }
+        }
+
+        MemberSearchPlan.Count count;
+        if (estimatedRows <= pageable.getOffset() + pageable.getPageSize()) {
+            count = MemberSearchPlan.Count.SKIP_IF_SHORT;
+            reasons.add("estimated " + estimatedRows + " rows end within this page: count skipped if page is short");
+        } else {
+            count = MemberSearchPlan.Count.EXACT;
+            reasons.add("estimated " + estimatedRows + " rows beyond this page: count in parallel with content");
+        }
+        return new MemberSearchPlan(access, paging, count, estimatedRows, reasons);
+    }
+
+    private static double selectivity(double rows, long total) {
+        return total == 0 ? 0.0 : Math.min(1.0, rows / total);
+    }
+
+    //정렬 없음(= id 순) 또는 id 하나로만 정렬
+    private static boolean orderedById(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        return orders.isEmpty() || (orders.size() == 1 && ID_PROPERTIES.contains(orders.get(0).getProperty()));
+    }
+
+    private MemberSearchPlan record(MemberSearchPlan plan) {
+        Counter.builder("member.search.plans")
+                .description("Member search execution strategies chosen by the planner")
+                .tag("access", plan.access().name().toLowerCase())
+                .tag("paging", plan.paging().name().toLowerCase())
+                .tag("count", plan.count().name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+        return plan;
+    }
+}
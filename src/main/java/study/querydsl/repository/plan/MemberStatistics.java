@@ -0,0 +1,162 @@
+package study.querydsl.repository.plan;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.repository.event.MemberChangeEvent;
+import study.querydsl.repository.event.MemberChangeEventBus;
+import study.querydsl.repository.event.MemberChangeSubscriber;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//검색 실행 계획용 메모리 통계 - 나이별 회원 수(히스토그램), 팀별 회원 수, username 종류 수
+//- 기동 시(또는 그 전에 워밍업에서) group by 집계로 생성, 이후 변경 이벤트가 전체의 refresh-ratio 이상 쌓이면 구독 스레드에서 다시 생성
+//- 벌크 연산/이벤트 유실이면 바로 다시 생성
+//- 추정용이라 정확할 필요는 없음 (결과 정합성에는 쓰지 않음)
+@Slf4j
+@Component
+public class MemberStatistics implements MemberChangeSubscriber {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MemberChangeEventBus eventBus;
+    private final double refreshRatio;
+    private final AtomicLong changesSinceRefresh = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    public MemberStatistics(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                            MemberChangeEventBus eventBus,
+                            @Value("${member.statistics.refresh-ratio:0.1}") double refreshRatio) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.eventBus = eventBus;
+        this.refreshRatio = refreshRatio;
+    }
+
+    public record Snapshot(long totalRows,
+                           long distinctUsernames,
+                           NavigableMap<Integer, Long> ageCounts,
+                           Map<String, Long> teamCounts,
+                           Instant builtAt) {
+
+        //ageGoe <= age <= ageLoe 회원 수 (null 이면 그쪽 제한 없음)
+        public long ageRows(Integer ageGoe, Integer ageLoe) {
+            if (ageGoe != null && ageLoe != null && ageGoe > ageLoe) {
+                return 0L;
+            }
+            NavigableMap<Integer, Long> range = ageCounts;
+            if (ageGoe != null) {
+                range = range.tailMap(ageGoe, true);
+            }
+            if (ageLoe != null) {
+                range = range.headMap(ageLoe, true);
+            }
+            return range.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public long teamRows(String teamName) {
+            return teamCounts.getOrDefault(teamName, 0L);
+        }
+
+        //같은 username 회원 수 평균
+        public double rowsPerUsername() {
+            return distinctUsernames == 0 ? 0.0 : (double) totalRows / distinctUsernames;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        eventBus.subscribe("member-statistics", this);
+        ensureBuilt();
+    }
+
+    //준비 완료 전에 통계가 필요한 쪽(워밍업)에서 먼저 만들 수 있음 - 이미 있으면 그대로 사용
+    public Snapshot ensureBuilt() {
+        Snapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    //아직 한 번도 만들지 않았으면 null
+    public Snapshot current() {
+        return snapshot;
+    }
+
+    public synchronized Snapshot refresh() {
+        Snapshot next = readOnlyTransaction.execute(status -> build());
+        changesSinceRefresh.set(0);
+        snapshot = next;
+        log.debug("member statistics refreshed: {} rows, {} usernames, {} ages, {} teams",
+                next.totalRows(), next.distinctUsernames(), next.ageCounts().size(), next.teamCounts().size());
+        return next;
+    }
+
+    private Snapshot build() {
+        NavigableMap<Integer, Long> ageCounts = new TreeMap<>();
+        for (Tuple row : queryFactory
+                .select(member.age, member.count())
+                .from(member)
+                .groupBy(member.age)
+                .fetch()) {
+            ageCounts.put(row.get(member.age), row.get(member.count()));
+        }
+
+        Map<String, Long> teamCounts = new HashMap<>();
+        for (Tuple row : queryFactory
+                .select(team.name, member.count())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .fetch()) {
+            if (row.get(team.name) != null) {
+                teamCounts.put(row.get(team.name), row.get(member.count()));
+            }
+        }
+
+        Long distinctUsernames = queryFactory
+                .select(member.username.countDistinct())
+                .from(member)
+                .fetchOne();
+
+        long totalRows = ageCounts.values().stream().mapToLong(Long::longValue).sum();
+        return new Snapshot(totalRows,
+                distinctUsernames == null ? 0L : distinctUsernames,
+                Collections.unmodifiableNavigableMap(ageCounts),
+                Map.copyOf(teamCounts),
+                Instant.now());
+    }
+
+    @Override
+    public void onChange(MemberChangeEvent event) {
+        if (event.isBulk()) {
+            refresh();
+            return;
+        }
+        Snapshot current = snapshot;
+        long threshold = current == null ? 0L : (long) Math.max(100, current.totalRows() * refreshRatio);
+        if (changesSinceRefresh.incrementAndGet() >= threshold) {
+            refresh();
+        }
+    }
+
+    @Override
+    public void onOverrun(long lost) {
+        refresh();
+    }
+}
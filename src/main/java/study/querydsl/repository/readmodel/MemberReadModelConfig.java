@@ -0,0 +1,62 @@
+package study.querydsl.repository.readmodel;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydsl.repository.MemberCountEstimator;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.event.MemberChangeEventBus;
+import study.querydsl.repository.support.SortPlanner;
+
+import java.util.Map;
+import java.util.Set;
+
+import static study.querydsl.entity.QMemberSearch.memberSearch;
+
+//member.read-model.enabled=true 일 때만 - MemberRepositoryCustom 검색을 member_search 읽기 모델로
+//샤드 모드와는 같이 쓸 수 없음 (둘 다 MemberRepositoryCustom 을 교체)
+@Configuration
+@ConditionalOnExpression("${member.read-model.enabled:false} and !${member.sharding.enabled:false}")
+public class MemberReadModelConfig {
+
+    @Bean
+    MemberSearchProjector memberSearchProjector(EntityManager em, JPAQueryFactory queryFactory,
+                                                PlatformTransactionManager transactionManager,
+                                                MemberChangeEventBus eventBus) {
+        MemberSearchProjector projector = new MemberSearchProjector(em, queryFactory, transactionManager);
+        eventBus.subscribe("member-search", projector);
+        return projector;
+    }
+
+    @Bean
+    @Primary
+    MemberRepositoryCustom memberSearchReadRepository(EntityManager em, JPAQueryFactory queryFactory,
+                                                      MemberRepository memberRepository,
+                                                      MemberCountEstimator countEstimator,
+                                                      SortPlanner memberSearchSortPlanner) {
+        return new MemberSearchReadRepository(em, queryFactory, memberRepository, countEstimator,
+                memberSearchSortPlanner);
+    }
+
+    //읽기 모델에는 team_name 인덱스가 있어서 팀 이름 정렬도 허용
+    @Bean
+    SortPlanner memberSearchSortPlanner(MeterRegistry meterRegistry,
+                                        @Value("${member.sort.policy:REWRITE}") SortPlanner.Policy policy) {
+        return new SortPlanner(memberSearch.memberId,
+                Map.of("memberId", memberSearch.memberId,
+                        "id", memberSearch.memberId,
+                        "username", memberSearch.username,
+                        "age", memberSearch.age,
+                        "teamName", memberSearch.teamName),
+                Set.of("teamId"),
+                policy,
+                meterRegistry);
+    }
+}
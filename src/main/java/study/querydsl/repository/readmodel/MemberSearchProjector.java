@@ -0,0 +1,121 @@
+package study.querydsl.repository.readmodel;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.MemberSearch;
+import study.querydsl.repository.event.MemberChangeEvent;
+import study.querydsl.repository.event.MemberChangeSubscriber;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberSearch.memberSearch;
+import static study.querydsl.entity.QTeam.team;
+
+//member_search 읽기 모델 갱신 - 커밋된 변경 이벤트를 받아서 비동기로 반영
+//- 회원 추가/수정: 원본(member + team)에서 그 회원 행을 다시 읽어서 덮어씀 (이벤트 순서가 바뀌어도 최종 상태로 수렴)
+//- 팀 이름 변경: 그 팀 회원 행 전체를 벌크 update 한 번으로
+//- 벌크 update/delete, 이벤트 유실(overrun): 범위를 모르므로 전체 재구성
+//이벤트 처리와 재구성은 한 번에 하나씩 (synchronized)
+@Slf4j
+public class MemberSearchProjector implements MemberChangeSubscriber {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberSearchProjector(EntityManager em, JPAQueryFactory queryFactory,
+                                 PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public synchronized void onChange(MemberChangeEvent event) {
+        if (event.isBulk()) {
+            rebuild();
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> apply(event));
+    }
+
+    @Override
+    public void onOverrun(long lost) {
+        log.warn("member_search projector missed {} change events, rebuilding", lost);
+        rebuild();
+    }
+
+    //기동 시 한 번 전체 복사 (구독 전에 저장된 회원 포함)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        rebuild();
+    }
+
+    public synchronized long rebuild() {
+        Integer rows = transactionTemplate.execute(status -> {
+            queryFactory.delete(memberSearch).execute();
+            return em.createQuery("insert into MemberSearch (memberId, username, age, teamId, teamName)"
+                            + " select m.id, m.username, m.age, t.id, t.name from Member m left join m.team t")
+                    .executeUpdate();
+        });
+        log.info("member_search rebuilt with {} rows", rows);
+        return rows == null ? 0 : rows;
+    }
+
+    private void apply(MemberChangeEvent event) {
+        switch (event.entity()) {
+            case MEMBER -> {
+                if (event.type() == MemberChangeEvent.Type.DELETE) {
+                    queryFactory.delete(memberSearch).where(memberSearch.memberId.eq(event.id())).execute();
+                } else {
+                    refresh(event.id());
+                }
+            }
+            case TEAM -> {
+                if (event.type() == MemberChangeEvent.Type.UPDATE && event.changed("name")) {
+                    renameTeam(event.id());
+                } else if (event.type() == MemberChangeEvent.Type.DELETE) {
+                    queryFactory.update(memberSearch)
+                            .setNull(memberSearch.teamId)
+                            .setNull(memberSearch.teamName)
+                            .where(memberSearch.teamId.eq(event.id()))
+                            .execute();
+                }
+                //새 팀은 아직 회원이 없음
+            }
+        }
+    }
+
+    private void refresh(Long memberId) {
+        Tuple row = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.eq(memberId))
+                .fetchOne();
+        if (row == null) {
+            //이미 삭제됨 - 뒤따르는 삭제 이벤트와 같은 결과
+            queryFactory.delete(memberSearch).where(memberSearch.memberId.eq(memberId)).execute();
+            return;
+        }
+        em.merge(new MemberSearch(row.get(member.id), row.get(member.username), row.get(member.age),
+                row.get(team.id), row.get(team.name)));
+    }
+
+    //팀 이름은 이벤트 값 대신 현재 값으로 (이름이 연달아 바뀌어도 마지막 이름으로)
+    private void renameTeam(Long teamId) {
+        queryFactory.update(memberSearch)
+                .set(memberSearch.teamName, JPAExpressions
+                        .select(team.name)
+                        .from(team)
+                        .where(team.id.eq(teamId)))
+                .where(memberSearch.teamId.eq(teamId))
+                .execute();
+    }
+}
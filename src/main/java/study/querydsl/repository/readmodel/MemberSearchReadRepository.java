@@ -0,0 +1,259 @@
+package study.querydsl.repository.readmodel;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberCountEstimator;
+import study.querydsl.repository.MemberField;
+import study.querydsl.repository.MemberIdBounds;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.MemberSearchBatch;
+import study.querydsl.repository.MemberSearchUnion;
+import study.querydsl.repository.support.EstimatedPageImpl;
+import study.querydsl.repository.support.InListChunks;
+import study.querydsl.repository.support.MemberCollation;
+import study.querydsl.repository.support.SliceExecutionUtils;
+import study.querydsl.repository.support.SortPlanner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static org.springframework.data.support.PageableExecutionUtils.getPage;
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMemberSearch.memberSearch;
+
+//읽기 모델 모드 MemberRepositoryCustom - member_search 한 테이블에서 조인 없이 조회
+//변경 이벤트로 비동기 갱신되므로 커밋 직후 잠깐은 이전 값이 보일 수 있음 (그래서 쓰기 버전 기반 검색 캐시는 거치지 않음)
+//윈도우 함수 쿼리는 원본 테이블 구현(delegate)으로
+public class MemberSearchReadRepository implements MemberRepositoryCustom {
+
+    private static final Map<MemberField, Expression<?>> FIELD_PATHS = new EnumMap<>(Map.of(
+            MemberField.MEMBER_ID, memberSearch.memberId,
+            MemberField.USERNAME, memberSearch.username,
+            MemberField.AGE, memberSearch.age,
+            MemberField.TEAM_ID, memberSearch.teamId,
+            MemberField.TEAM_NAME, memberSearch.teamName));
+
+    private final EntityManager entityManager;
+    private final JPAQueryFactory queryFactory;
+    private final MemberRepositoryCustom delegate;
+    private final MemberCountEstimator countEstimator;
+    private final SortPlanner sortPlanner;
+
+    public MemberSearchReadRepository(EntityManager entityManager, JPAQueryFactory queryFactory,
+                                      MemberRepositoryCustom delegate,
+                                      MemberCountEstimator countEstimator, SortPlanner sortPlanner) {
+        this.entityManager = entityManager;
+        this.queryFactory = queryFactory;
+        this.delegate = delegate;
+        this.countEstimator = countEstimator;
+        this.sortPlanner = sortPlanner;
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return contentQuery(condition).fetch();
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return searchPage(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPage(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = page(contentQuery(condition), pageable).fetch();
+        return getPage(content, pageable, () -> count(condition));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = page(contentQuery(condition), pageable).fetch();
+        if (pageable.getOffset() == 0 && content.size() < pageable.getPageSize()) {
+            return new EstimatedPageImpl<>(content, pageable, content.size(), true);
+        }
+        OptionalLong estimated = countEstimator.estimate(condition);
+        if (estimated.isPresent()) {
+            return new EstimatedPageImpl<>(content, pageable, estimated.getAsLong(), false);
+        }
+        return new EstimatedPageImpl<>(content, pageable, count(condition), true);
+    }
+
+    @Override
+    public List<MemberTeamDto> searchByIdRange(MemberSearchCondition condition, long fromId, long toId) {
+        return contentQuery(condition)
+                .where(memberSearch.memberId.goe(fromId),
+                        memberSearch.memberId.lt(toId))
+                .orderBy(memberSearch.memberId.asc())
+                .fetch();
+    }
+
+    @Override
+    public Optional<MemberIdBounds> findIdBounds() {
+        Tuple bounds = queryFactory
+                .select(memberSearch.memberId.min(), memberSearch.memberId.max())
+                .from(memberSearch)
+                .fetchOne();
+        Long minId = bounds == null ? null : bounds.get(memberSearch.memberId.min());
+        Long maxId = bounds == null ? null : bounds.get(memberSearch.memberId.max());
+        return minId == null || maxId == null ? Optional.empty() : Optional.of(new MemberIdBounds(minId, maxId));
+    }
+
+    @Override
+    public List<MemberTeamDto> findTopByAgePerTeam(int topN) {
+        return delegate.findTopByAgePerTeam(topN);
+    }
+
+    @Override
+    public List<MemberTeamDto> findAboveAverageAge() {
+        return delegate.findAboveAverageAge();
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberTeamDto> query = contentQuery(condition);
+        if (pageable.isUnpaged()) {
+            return SliceExecutionUtils.getSlice(query.fetch(), pageable);
+        }
+        List<MemberTeamDto> content = query
+                .orderBy(sortPlanner.plan(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(SliceExecutionUtils.lookAheadLimit(pageable))
+                .fetch();
+        return SliceExecutionUtils.getSlice(content, pageable);
+    }
+
+    @Override
+    public List<MemberTeamDto> findAllByIdsOrdered(Collection<Long> ids) {
+        List<MemberTeamDto> found = new ArrayList<>();
+        for (List<Long> chunk : InListChunks.of(ids, InListChunks.DEFAULT_MAX_CHUNK)) {
+            found.addAll(contentQuery(new MemberSearchCondition())
+                    .where(memberSearch.memberId.in(chunk))
+                    .fetch());
+        }
+        return InListChunks.inKeyOrder(ids, found, MemberTeamDto::getMemberId);
+    }
+
+    @Override
+    public List<MemberTeamDto> findByUsernames(Collection<String> usernames) {
+        List<MemberTeamDto> found = new ArrayList<>();
+        List<String> distinct = InListChunks.distinctBy(usernames, MemberCollation::key);
+        for (List<String> chunk : InListChunks.of(distinct, InListChunks.DEFAULT_MAX_CHUNK)) {
+            found.addAll(contentQuery(new MemberSearchCondition())
+                    .where(memberSearch.username.in(chunk))
+                    .orderBy(memberSearch.memberId.asc())
+                    .fetch());
+        }
+        return InListChunks.inKeyOrder(usernames, found, MemberTeamDto::getUsername, MemberCollation::key);
+    }
+
+    @Override
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields) {
+        return fieldsQuery(condition, fields).fetch().stream().map(tuple -> toMap(tuple, fields)).toList();
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+                                                      Pageable pageable) {
+        List<Map<String, Object>> content = page(fieldsQuery(condition, fields), pageable)
+                .fetch()
+                .stream()
+                .map(tuple -> toMap(tuple, fields))
+                .toList();
+        return getPage(content, pageable, () -> count(condition));
+    }
+
+    //서로 다른 조건들을 union all 한 문장으로
+    @Override
+    public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions, int maxRowsPerCondition) {
+        MemberSearchBatch batch = MemberSearchBatch.of(conditions);
+        return batch.expand(MemberSearchUnion.fetch(entityManager, MemberSearchUnion.Source.READ_MODEL,
+                batch.distinct(), maxRowsPerCondition));
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        memberSearch.memberId,
+                        memberSearch.username,
+                        memberSearch.age,
+                        memberSearch.teamId,
+                        memberSearch.teamName))
+                .from(memberSearch)
+                .where(conditions(condition));
+    }
+
+    private JPAQuery<Tuple> fieldsQuery(MemberSearchCondition condition, Set<MemberField> fields) {
+        return queryFactory
+                .select(fields.stream().map(FIELD_PATHS::get).toArray(Expression<?>[]::new))
+                .from(memberSearch)
+                .where(conditions(condition));
+    }
+
+    private <T> JPAQuery<T> page(JPAQuery<T> query, Pageable pageable) {
+        return query
+                .orderBy(sortPlanner.plan(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+    }
+
+    private long count(MemberSearchCondition condition) {
+        Long count = queryFactory
+                .select(memberSearch.count())
+                .from(memberSearch)
+                .where(conditions(condition))
+                .fetchOne();
+        return count == null ? 0L : count;
+    }
+
+    private Map<String, Object> toMap(Tuple tuple, Set<MemberField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        fields.forEach(field -> row.put(field.property(), tuple.get(FIELD_PATHS.get(field))));
+        return row;
+    }
+
+    private BooleanExpression[] conditions(MemberSearchCondition condition) {
+        return new BooleanExpression[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())};
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? memberSearch.teamName.eq(teamName) : null;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? memberSearch.username.eq(username) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? memberSearch.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? memberSearch.age.goe(ageGoe) : null;
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.repository.shard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+//member.sharding.enabled=true 일 때만 - MemberRepositoryCustom 을 샤드 scatter-gather 구현으로 교체
+//샤드에 쓰는 쪽은 ShardedMemberRepository 의 saveTeam/saveMember/renameTeam 을 사용
+@Configuration
+@ConditionalOnProperty(name = "member.sharding.enabled", havingValue = "true")
+public class MemberShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    MemberShards memberShards(@Value("${member.sharding.urls}") List<String> urls,
+                              @Value("${member.sharding.username:${spring.datasource.username:}}") String username,
+                              @Value("${member.sharding.password:${spring.datasource.password:}}") String password,
+                              @Value("${member.sharding.ddl-auto:none}") String ddlAuto) {
+        List<DataSource> dataSources = urls.stream()
+                .map(url -> (DataSource) DataSourceBuilder.create()
+                        .url(url)
+                        .username(username)
+                        .password(password)
+                        .build())
+                .toList();
+        return new MemberShards(dataSources, Map.of("hibernate.hbm2ddl.auto", ddlAuto));
+    }
+
+    @Bean
+    @Primary
+    ShardedMemberRepository shardedMemberRepository(MemberShards memberShards, ParallelQueryExecutor queryExecutor,
+                                                    @Value("${member.sharding.team-shards-ttl:1m}") Duration teamShardsTtl) {
+        return new ShardedMemberRepository(memberShards, queryExecutor.executor(), teamShardsTtl);
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.repository.shard;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//team_id 기준으로 Member 를 나눠 담는 샤드(데이터소스)별 EntityManagerFactory 묶음
+//빈으로 등록하지 않고 직접 만들기 때문에 기본 EntityManagerFactory 자동 설정은 그대로 유지됨
+public class MemberShards implements AutoCloseable {
+
+    private final List<DataSource> dataSources;
+    private final List<EntityManagerFactory> shards = new ArrayList<>();
+
+    public MemberShards(List<DataSource> dataSources, Map<String, Object> jpaProperties) {
+        Assert.notEmpty(dataSources, "At least one shard DataSource is required!");
+        this.dataSources = List.copyOf(dataSources);
+        Map<String, Object> properties = new HashMap<>(jpaProperties);
+        //스프링 부트 기본 EntityManagerFactory 와 같은 테이블/컬럼 이름을 쓰도록
+        properties.putIfAbsent("hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        properties.putIfAbsent("hibernate.implicit_naming_strategy",
+                "org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy");
+
+        for (int i = 0; i < dataSources.size(); i++) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setPersistenceUnitName("member-shard-" + i);
+            factory.setDataSource(dataSources.get(i));
+            factory.setPackagesToScan("study.querydsl.entity");
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setJpaPropertyMap(properties);
+            factory.afterPropertiesSet();
+            shards.add(factory.getObject());
+        }
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public EntityManagerFactory shard(int index) {
+        return shards.get(index);
+    }
+
+    //샤드마다 id 시퀀스가 따로라 같은 id 가 여러 샤드에 있을 수 있음
+    //-> 밖으로는 전역 id (샤드 안 id * 샤드 수 + 샤드 번호) 로 내보내고, 들어온 전역 id 는 shardFor/localId 로 풀어서 사용
+    public long globalId(int shard, long localId) {
+        return localId * shards.size() + shard;
+    }
+
+    public long localId(long globalId) {
+        return Math.floorDiv(globalId, (long) shards.size());
+    }
+
+    //전역 id 가 globalId 이상이 되는 shard 안의 가장 작은 id (id 범위 조건을 샤드 안 id 범위로 바꿀 때)
+    public long localIdFrom(int shard, long globalId) {
+        return -Math.floorDiv(shard - globalId, (long) shards.size());
+    }
+
+    //전역 id 가 있는 샤드 - 쓰기 쪽 배치 규칙: 회원은 팀 전역 id 로 정해진 샤드(팀과 같은 샤드)에 저장
+    public int shardFor(long globalId) {
+        return (int) Math.floorMod(globalId, (long) shards.size());
+    }
+
+    //새 팀(또는 팀 없는 회원)을 저장할 샤드 - 이름 해시로 고르게 나눔
+    public int shardForNew(String name) {
+        return Math.floorMod(name.hashCode(), shards.size());
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(EntityManagerFactory::close);
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to close shard DataSource", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,566 @@
+package study.querydsl.repository.shard;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberField;
+import study.querydsl.repository.MemberIdBounds;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.MemberSearchBatch;
+import study.querydsl.repository.MemberSearchUnion;
+import study.querydsl.repository.MemberWindowQueries;
+import study.querydsl.repository.support.EstimatedPageImpl;
+import study.querydsl.repository.support.InListChunks;
+import study.querydsl.repository.support.MemberCollation;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+import study.querydsl.repository.support.SliceExecutionUtils;
+import study.querydsl.repository.support.TimeoutJPAQueryFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//샤드 모드 MemberRepositoryCustom
+//teamName 조건이 있으면 그 팀이 있는 샤드에만, 없으면 모든 샤드에 병렬로 보내고(scatter) 결과를 합침(gather)
+//정렬/offset/limit 은 샤드마다 offset + limit 건을 정렬해서 가져온 뒤 메모리에서 병합, count 는 샤드별 합계
+//회원/팀 id 는 샤드마다 따로 증가하므로 결과의 memberId/teamId 는 전역 id (MemberShards.globalId) 로 바꿔서 돌려줌
+//쓰기(saveTeam/saveMember/renameTeam)도 여기를 거쳐야 팀과 그 회원이 MemberShards.shardFor 로 정해진 샤드에 같이 저장됨
+public class ShardedMemberRepository implements MemberRepositoryCustom {
+
+    private static final Map<String, ComparableExpressionBase<?>> SORT_PATHS = Map.of(
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age,
+            "teamId", team.id,
+            "teamName", team.name);
+
+    private static final Map<String, Function<MemberTeamDto, Comparable<?>>> SORT_VALUES = Map.of(
+            "memberId", dto -> dto.getMemberId(),
+            "username", dto -> dto.getUsername(),
+            "age", dto -> dto.getAge(),
+            "teamId", dto -> dto.getTeamId(),
+            "teamName", dto -> dto.getTeamName());
+
+    private final MemberShards shards;
+    private final ExecutorService executor;
+    //팀 이름 -> 그 팀이 저장된 샤드 번호 (DB 처럼 대소문자/악센트를 무시하도록 MemberCollation.key 로)
+    //여기를 거친 팀 추가/이름 변경은 바로 지우고, 다른 곳에서 바뀐 팀은 ttl 이 지나면 다시 찾음
+    private final Cache<String, List<Integer>> teamShards;
+
+    public ShardedMemberRepository(MemberShards shards, ExecutorService executor, Duration teamShardsTtl) {
+        this.shards = shards;
+        this.executor = executor;
+        this.teamShards = Caffeine.newBuilder()
+                .expireAfterWrite(teamShardsTtl)
+                .build();
+    }
+
+    //새 팀은 이름 해시로 고른 샤드에 저장 - 반환한 전역 id 의 shardFor 가 그 샤드
+    public Long saveTeam(String name) {
+        int shard = shards.shardForNew(name);
+        Long teamId = inTransaction(shard, em -> {
+            Team newTeam = new Team(name);
+            em.persist(newTeam);
+            em.flush();
+            return shards.globalId(shard, newTeam.getId());
+        });
+        //같은 이름 팀이 다른 샤드에 더 생겼을 수 있음
+        teamShards.invalidate(MemberCollation.key(name));
+        return teamId;
+    }
+
+    //회원은 팀과 같은 샤드 (팀 전역 id 의 shardFor), 팀이 없으면 username 해시로 고른 샤드
+    public Long saveMember(String username, int age, Long teamId) {
+        int shard = teamId == null ? shards.shardForNew(username) : shards.shardFor(teamId);
+        return inTransaction(shard, em -> {
+            Member newMember = new Member(username, age);
+            if (teamId != null) {
+                //changeTeam 은 team.members 를 초기화하므로 연관관계 주인 쪽만 설정
+                newMember.setTeam(em.getReference(Team.class, shards.localId(teamId)));
+            }
+            em.persist(newMember);
+            em.flush();
+            return shards.globalId(shard, newMember.getId());
+        });
+    }
+
+    public void renameTeam(Long teamId, String name) {
+        String previousName = inTransaction(shards.shardFor(teamId), em -> {
+            Team found = em.find(Team.class, shards.localId(teamId));
+            if (found == null) {
+                throw new IllegalArgumentException("Team not found: " + teamId);
+            }
+            String previous = found.getName();
+            found.setName(name);
+            return previous;
+        });
+        teamShards.invalidate(MemberCollation.key(previousName));
+        teamShards.invalidate(MemberCollation.key(name));
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<MemberTeamDto> result = new ArrayList<>();
+        scatter(targetShards(condition), (shard, query) -> globalize(shard, contentQuery(query, condition).fetch()))
+                .forEach(result::addAll);
+        return result;
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return searchPage(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPage(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        List<Integer> targets = targetShards(condition);
+        List<MemberTeamDto> content = mergeWindow(targets, condition, pageable, pageable.getPageSize());
+        long total = count(targets, condition);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable) {
+        //샤드별 count 는 각 샤드 크기만큼만 세므로 정확한 합계를 그대로 사용
+        Page<MemberTeamDto> page = searchPage(condition, pageable);
+        return new EstimatedPageImpl<>(page.getContent(), pageable, page.getTotalElements(), true);
+    }
+
+    @Override
+    public List<MemberTeamDto> searchByIdRange(MemberSearchCondition condition, long fromId, long toId) {
+        List<MemberTeamDto> result = new ArrayList<>();
+        //전역 id 범위 [fromId, toId) -> 샤드마다 샤드 안 id 범위로
+        scatter(targetShards(condition), (shard, query) -> globalize(shard, contentQuery(query, condition)
+                .where(member.id.goe(shards.localIdFrom(shard, fromId)),
+                        member.id.lt(shards.localIdFrom(shard, toId)))
+                .orderBy(member.id.asc())
+                .fetch()))
+                .forEach(result::addAll);
+        result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return result;
+    }
+
+    //샤드마다 샤드 안 id 범위를 전역 id 로 바꿔서 전체 최소/최대
+    @Override
+    public Optional<MemberIdBounds> findIdBounds() {
+        List<Integer> all = IntStream.range(0, shards.size()).boxed().toList();
+        List<Optional<MemberIdBounds>> perShard = scatter(all, (shard, query) -> {
+            Tuple bounds = query
+                    .select(member.id.min(), member.id.max())
+                    .from(member)
+                    .fetchOne();
+            Long minId = bounds == null ? null : bounds.get(member.id.min());
+            Long maxId = bounds == null ? null : bounds.get(member.id.max());
+            return minId == null || maxId == null
+                    ? Optional.<MemberIdBounds>empty()
+                    : Optional.of(new MemberIdBounds(shards.globalId(shard, minId), shards.globalId(shard, maxId)));
+        });
+        return perShard.stream()
+                .flatMap(Optional::stream)
+                .reduce((a, b) -> new MemberIdBounds(Math.min(a.minId(), b.minId()), Math.max(a.maxId(), b.maxId())));
+    }
+
+    //팀은 한 샤드에만 있으므로 샤드별 결과를 합치면 그대로 팀별 상위 N 명
+    @Override
+    public List<MemberTeamDto> findTopByAgePerTeam(int topN) {
+        List<MemberTeamDto> result = new ArrayList<>();
+        List<Integer> all = IntStream.range(0, shards.size()).boxed().toList();
+        scatterEntityManager(all, (shard, em) -> {
+            List<MemberTeamDto> rows = new ArrayList<>();
+            for (Object row : em.createNativeQuery(MemberWindowQueries.TOP_BY_AGE_PER_TEAM)
+                    .setParameter("topN", topN)
+                    .getResultList()) {
+                rows.add(MemberWindowQueries.toDto((Object[]) row));
+            }
+            return globalize(shard, rows);
+        }).forEach(result::addAll);
+        return result;
+    }
+
+    //평균은 전체 샤드 기준이어야 하므로 샤드별 (평균, 개수) 로 전체 평균을 구한 뒤 다시 scatter
+    @Override
+    public List<MemberTeamDto> findAboveAverageAge() {
+        List<Integer> all = IntStream.range(0, shards.size()).boxed().toList();
+        List<Tuple> stats = scatter(all, (shard, query) -> query
+                .select(member.age.avg(), member.count())
+                .from(member)
+                .fetchOne());
+        double sum = 0;
+        long count = 0;
+        for (Tuple stat : stats) {
+            Double shardAverage = stat == null ? null : stat.get(member.age.avg());
+            Long shardCount = stat == null ? null : stat.get(member.count());
+            if (shardAverage != null && shardCount != null) {
+                sum += shardAverage * shardCount;
+                count += shardCount;
+            }
+        }
+        if (count == 0) {
+            return new ArrayList<>();
+        }
+        double average = sum / count;
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        scatter(all, (shard, query) -> globalize(shard, contentQuery(query, new MemberSearchCondition())
+                .where(member.age.goe(average))
+                .orderBy(member.id.asc())
+                .fetch()))
+                .forEach(result::addAll);
+        result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return result;
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return SliceExecutionUtils.getSlice(search(condition), pageable);
+        }
+        List<MemberTeamDto> content = mergeWindow(targetShards(condition), condition, pageable,
+                SliceExecutionUtils.lookAheadLimit(pageable));
+        return SliceExecutionUtils.getSlice(content, pageable);
+    }
+
+    //전역 id 로 회원이 있는 샤드를 알 수 있으므로 샤드별로 나눠서 그 샤드에만 조회
+    @Override
+    public List<MemberTeamDto> findAllByIdsOrdered(Collection<Long> ids) {
+        Map<Integer, List<Long>> localIds = new TreeMap<>();
+        for (Long id : ids) {
+            if (id != null) {
+                localIds.computeIfAbsent(shards.shardFor(id), shard -> new ArrayList<>()).add(shards.localId(id));
+            }
+        }
+        List<MemberTeamDto> found = new ArrayList<>();
+        scatter(List.copyOf(localIds.keySet()), (shard, query) -> {
+            List<MemberTeamDto> rows = new ArrayList<>();
+            for (List<Long> chunk : InListChunks.of(localIds.get(shard), InListChunks.DEFAULT_MAX_CHUNK)) {
+                rows.addAll(contentQuery(query, new MemberSearchCondition())
+                        .where(member.id.in(chunk))
+                        .fetch());
+            }
+            return globalize(shard, rows);
+        }).forEach(found::addAll);
+        return InListChunks.inKeyOrder(ids, found, MemberTeamDto::getMemberId);
+    }
+
+    @Override
+    public List<MemberTeamDto> findByUsernames(Collection<String> usernames) {
+        List<Integer> all = IntStream.range(0, shards.size()).boxed().toList();
+        List<MemberTeamDto> found = new ArrayList<>();
+        List<String> distinct = InListChunks.distinctBy(usernames, MemberCollation::key);
+        for (List<String> chunk : InListChunks.of(distinct, InListChunks.DEFAULT_MAX_CHUNK)) {
+            scatter(all, (shard, query) -> globalize(shard, contentQuery(query, new MemberSearchCondition())
+                    .where(member.username.in(chunk))
+                    .fetch()))
+                    .forEach(found::addAll);
+        }
+        found.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return InListChunks.inKeyOrder(usernames, found, MemberTeamDto::getUsername, MemberCollation::key);
+    }
+
+    //조건마다 scatter 하지 않고 샤드마다 union all 한 문장(MemberSearchUnion)으로 모든 조건을 보낸 뒤 조건별로 합침
+    //샤드 안에서는 어떤 샤드인지 모르므로 대상 샤드 합집합에 라우팅된 조건을 모두 보냄 (팀이 없는 샤드에서는 빈 결과)
+    //샤드마다 id 순 앞의 maxRowsPerCondition 건 -> 합친 뒤 전역 id 순 앞의 maxRowsPerCondition 건
+    //(전역 id 는 샤드 안에서 샤드 안 id 와 같은 순서라 샤드별 앞부분에 전체의 앞부분이 모두 들어 있음)
+    @Override
+    public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions, int maxRowsPerCondition) {
+        MemberSearchBatch batch = MemberSearchBatch.of(conditions);
+        List<MemberSearchCondition> distinct = batch.distinct();
+        List<Integer> routed = new ArrayList<>();
+        Set<Integer> targets = new TreeSet<>();
+        for (int i = 0; i < distinct.size(); i++) {
+            List<Integer> conditionShards = targetShards(distinct.get(i));
+            if (!conditionShards.isEmpty()) {
+                routed.add(i);
+                targets.addAll(conditionShards);
+            }
+        }
+        List<MemberSearchCondition> routedConditions = routed.stream().map(distinct::get).toList();
+
+        List<List<List<MemberTeamDto>>> perShard = scatterEntityManager(List.copyOf(targets), (shard, em) ->
+                MemberSearchUnion.fetch(em, MemberSearchUnion.Source.MEMBER, routedConditions, maxRowsPerCondition)
+                        .stream()
+                        .map(rows -> globalize(shard, rows))
+                        .toList());
+        List<List<MemberTeamDto>> results = new ArrayList<>(distinct.size());
+        for (int i = 0; i < distinct.size(); i++) {
+            results.add(List.of());
+        }
+        for (int r = 0; r < routed.size(); r++) {
+            List<MemberTeamDto> merged = new ArrayList<>();
+            for (List<List<MemberTeamDto>> shardResults : perShard) {
+                merged.addAll(shardResults.get(r));
+            }
+            merged.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+            results.set(routed.get(r), merged.size() > maxRowsPerCondition
+                    ? new ArrayList<>(merged.subList(0, maxRowsPerCondition))
+                    : merged);
+        }
+        return batch.expand(results);
+    }
+
+    //샤드 병합/정렬이 MemberTeamDto 기준이라 전체 컬럼으로 조회한 뒤 요청 필드만 남김
+    @Override
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields) {
+        return search(condition).stream().map(dto -> MemberField.toMap(dto, fields)).toList();
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+                                                      Pageable pageable) {
+        return searchPage(condition, pageable).map(dto -> MemberField.toMap(dto, fields));
+    }
+
+    //샤드마다 정렬된 앞쪽 offset + limit 건만 가져와서 병합 정렬 후 [offset, offset + limit) 구간만 잘라냄
+    private List<MemberTeamDto> mergeWindow(List<Integer> targets, MemberSearchCondition condition,
+                                            Pageable pageable, long limit) {
+        Sort sort = pageable.getSort();
+        OrderSpecifier<?>[] orders = orderSpecifiers(sort);
+        long offset = pageable.getOffset();
+
+        List<MemberTeamDto> merged = new ArrayList<>();
+        scatter(targets, (shard, query) -> globalize(shard, contentQuery(query, condition)
+                .orderBy(orders)
+                .limit(offset + limit)
+                .fetch()))
+                .forEach(merged::addAll);
+        merged.sort(comparator(sort));
+
+        if (offset >= merged.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(merged.subList((int) offset, (int) Math.min(merged.size(), offset + limit)));
+    }
+
+    private long count(List<Integer> targets, MemberSearchCondition condition) {
+        return scatter(targets, (shard, query) -> {
+            Long count = query
+                    .select(member.count())
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(usernameEq(condition.getUsername()),
+                            teamNameEq(condition.getTeamName()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe()))
+                    .fetchOne();
+            return count == null ? 0L : count;
+        }).stream().mapToLong(Long::longValue).sum();
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(JPAQueryFactory query, MemberSearchCondition condition) {
+        return query
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()));
+    }
+
+    //teamName 조건이 있으면 그 팀이 저장된 샤드로만 라우팅
+    private List<Integer> targetShards(MemberSearchCondition condition) {
+        List<Integer> all = IntStream.range(0, shards.size()).boxed().toList();
+        if (!hasText(condition.getTeamName())) {
+            return all;
+        }
+        List<Integer> cached = teamShards.getIfPresent(MemberCollation.key(condition.getTeamName()));
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Boolean> found = scatter(all, (shard, query) -> query
+                .selectOne()
+                .from(team)
+                .where(team.name.eq(condition.getTeamName()))
+                .fetchFirst() != null);
+        List<Integer> located = IntStream.range(0, found.size())
+                .filter(found::get)
+                .boxed()
+                .toList();
+        //없는 팀은 캐시하지 않음 (나중에 생길 수 있으니)
+        if (!located.isEmpty()) {
+            teamShards.put(MemberCollation.key(condition.getTeamName()), located);
+        }
+        return located;
+    }
+
+    //샤드 안 id 를 전역 id 로 (샤드 안 정렬 순서는 그대로 유지됨)
+    private List<MemberTeamDto> globalize(int shard, List<MemberTeamDto> rows) {
+        for (MemberTeamDto row : rows) {
+            row.setMemberId(shards.globalId(shard, row.getMemberId()));
+            if (row.getTeamId() != null) {
+                row.setTeamId(shards.globalId(shard, row.getTeamId()));
+            }
+        }
+        return rows;
+    }
+
+    private <R> R inTransaction(int shard, Function<EntityManager, R> work) {
+        EntityManager em = shards.shard(shard).createEntityManager();
+        try {
+            em.getTransaction().begin();
+            R result = work.apply(em);
+            em.getTransaction().commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private <R> List<R> scatter(List<Integer> targets, BiFunction<Integer, JPAQueryFactory, R> work) {
+        return scatterEntityManager(targets, (shard, em) -> work.apply(shard, new TimeoutJPAQueryFactory(em)));
+    }
+
+    //대상 샤드마다 별도 EntityManager(커넥션)로 병렬 실행, 결과는 targets 순서대로 (work 에는 샤드 번호도 넘김)
+    //이미 조회 풀 스레드 위(리포트 범위 조회 등)면 같은 풀에 다시 제출하지 않고 차례대로 - 풀이 꽉 차면 서로 기다리며 멈춤
+    private <R> List<R> scatterEntityManager(List<Integer> targets, BiFunction<Integer, EntityManager, R> work) {
+        if (ParallelQueryExecutor.onWorkerThread()) {
+            List<R> results = new ArrayList<>();
+            for (Integer index : targets) {
+                EntityManager em = shards.shard(index).createEntityManager();
+                try {
+                    results.add(work.apply(index, em));
+                } finally {
+                    em.close();
+                }
+            }
+            return results;
+        }
+        List<Future<R>> futures = new ArrayList<>();
+        for (Integer index : targets) {
+            futures.add(executor.submit(() -> {
+                EntityManager em = shards.shard(index).createEntityManager();
+                try {
+                    return work.apply(index, em);
+                } finally {
+                    em.close();
+                }
+            }));
+        }
+
+        List<R> results = new ArrayList<>();
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("shard query interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("shard query failed", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    //샤드 안 정렬과 병합 정렬이 같은 순서가 되도록 항상 memberId 를 마지막 정렬 기준으로 추가
+    private OrderSpecifier<?>[] orderSpecifiers(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = SORT_PATHS.get(order.getProperty());
+            if (path == null) {
+                throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+            }
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+        }
+        orders.add(member.id.asc());
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    //MySQL 정렬과 동일하게 오름차순에서 null 이 먼저, 문자열은 컬럼 collation 순서 (대소문자/악센트 무시)
+    //샤드마다 DB 가 정렬한 앞부분을 병합하므로 DB 와 다른 순서로 비교하면 페이지 사이에서 행이 빠지거나 겹침
+    private Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> result = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Function<MemberTeamDto, Comparable<?>> value = SORT_VALUES.get(order.getProperty());
+            Comparator<MemberTeamDto> next = (a, b) -> compareNullsFirst(value.apply(a), value.apply(b));
+            result = result.thenComparing(order.isAscending() ? next : next.reversed());
+        }
+        return result.thenComparing((a, b) -> compareNullsFirst(a.getMemberId(), b.getMemberId()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareNullsFirst(Comparable<?> a, Comparable<?> b) {
+        if (a == b) {
+            return 0;
+        }
+        if (a == null) {
+            return -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        if (a instanceof String left && b instanceof String right) {
+            return MemberCollation.ORDER.compare(left, right);
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+}
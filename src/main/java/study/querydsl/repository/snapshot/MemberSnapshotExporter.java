@@ -0,0 +1,87 @@
+package study.querydsl.repository.snapshot;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.support.MySqlStreaming;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+//분석용 회원 스냅샷 내보내기 (/v1/members JSON 대신 컬럼 파일)
+//- StatelessSession 으로 팀 전체 -> 회원을 id 순 스크롤 (영속성 컨텍스트/더티 체킹 없음, 한 트랜잭션이라 같은 시점)
+//- 임시 파일에 쓰고 끝나면 원자적으로 교체 -> 읽는 쪽은 항상 완성된 파일만 봄
+@Slf4j
+@Component
+public class MemberSnapshotExporter {
+
+    private final EntityManagerFactory emf;
+    private final int rowGroupSize;
+
+    public MemberSnapshotExporter(EntityManagerFactory emf,
+                                  @Value("${member.snapshot.row-group-size:65536}") int rowGroupSize) {
+        this.emf = emf;
+        this.rowGroupSize = rowGroupSize;
+    }
+
+    public record ExportSummary(Path file, long rows, long bytes) {
+    }
+
+    public synchronized ExportSummary export(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            ExportSummary summary = write(temp, target);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("member snapshot exported: {} rows, {} bytes -> {}", summary.rows(), summary.bytes(), target);
+            return summary;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private ExportSummary write(Path temp, Path target) throws IOException {
+        //fast 프로파일의 지연 JPA 초기화를 막지 않도록 생성자가 아니라 내보낼 때 unwrap
+        try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession();
+             FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MemberSnapshotWriter writer = new MemberSnapshotWriter(channel, rowGroupSize);
+            Transaction transaction = session.beginTransaction();
+            try {
+                for (Object[] team : session
+                        .createQuery("select t.id, t.name from Team t", Object[].class)
+                        .getResultList()) {
+                    writer.team(((Number) team[0]).longValue(), (String) team[1]);
+                }
+                //m.team.id 는 FK 컬럼이라 조인 없음, 한 행씩 스트리밍 (스크롤 중에는 이 세션으로 다른 쿼리 없음)
+                try (ScrollableResults<Object[]> rows = session
+                        .createQuery("select m.id, m.username, m.age, m.team.id from Member m order by m.id", Object[].class)
+                        .setFetchSize(MySqlStreaming.FETCH_SIZE)
+                        .scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (rows.next()) {
+                        Object[] row = rows.get();
+                        writer.append(((Number) row[0]).longValue(), (String) row[1], ((Number) row[2]).intValue(),
+                                row[3] == null ? null : ((Number) row[3]).longValue());
+                    }
+                }
+                transaction.commit();
+            } catch (IOException | RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+            long bytes = writer.finish();
+            channel.force(false);
+            return new ExportSummary(target, writer.rows(), bytes);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.repository.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//회원 스냅샷 컬럼 파일 형식 (Parquet 처럼 행 그룹 + 끝에 메타데이터)
+//
+//  header : magic(int) version(int)
+//  row group * N : 컬럼별로 연속 저장
+//      ageWidth(byte) ageBase(int)
+//      memberId long[rows]
+//      age      (age - ageBase) 를 ageWidth(1/2/4) 바이트로 [rows]
+//      team     팀 사전 코드 int[rows] (-1 = 팀 없음)
+//      username 길이 int[rows] (-1 = null) + UTF-8 바이트
+//  footer : 팀 사전 (teamId, name) + 행 그룹별 위치/통계 (id/age/username 최소·최대, 들어있는 팀 코드)
+//  trailer : footerOffset(long) magic(int)
+//
+//읽는 쪽은 footer 만 먼저 읽고 통계로 조건에 안 맞는 행 그룹은 읽지 않음 (predicate pushdown)
+final class MemberSnapshotFormat {
+
+    static final int MAGIC = 0x4D534E50; //"MSNP"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+    static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+    static final int NO_TEAM = -1;
+
+    private MemberSnapshotFormat() {
+    }
+
+    //footer 에 들어가는 행 그룹 메타데이터
+    record RowGroup(long offset, int length, int rowCount,
+                    long minId, long maxId,
+                    int minAge, int maxAge,
+                    int[] teamCodes,
+                    String minUsername, String maxUsername) {
+    }
+
+    static int ageWidth(int minAge, int maxAge) {
+        long range = (long) maxAge - minAge;
+        return range <= 0xFF ? 1 : range <= 0xFFFF ? 2 : 4;
+    }
+
+    static int stringBytes(String value) {
+        return Integer.BYTES + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
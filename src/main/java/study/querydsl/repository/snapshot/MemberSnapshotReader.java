@@ -0,0 +1,205 @@
+package study.querydsl.repository.snapshot;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.springframework.util.StringUtils.hasText;
+
+//MemberSnapshotFormat 읽기 - MemberSearchCondition 조건을 파일에서 바로 처리
+//- footer(팀 사전 + 행 그룹 통계)만 열 때 읽고, 행 그룹은 통계가 조건과 겹칠 때만 읽음
+//- 행 그룹 안에서는 age/team 컬럼으로 먼저 거르고 통과한 행만 username 을 문자열로 만듦
+public class MemberSnapshotReader implements Closeable {
+
+    private final FileChannel channel;
+    private final long[] teamIds;
+    private final String[] teamNames;
+    private final List<MemberSnapshotFormat.RowGroup> rowGroups;
+
+    //한 번의 scan 결과 - 통계로 건너뛴 행 그룹 수 포함
+    public record ScanStats(int rowGroupsRead, int rowGroupsSkipped, long rowsMatched) {
+    }
+
+    private MemberSnapshotReader(FileChannel channel, long[] teamIds, String[] teamNames,
+                                 List<MemberSnapshotFormat.RowGroup> rowGroups) {
+        this.channel = channel;
+        this.teamIds = teamIds;
+        this.teamNames = teamNames;
+        this.rowGroups = rowGroups;
+    }
+
+    public static MemberSnapshotReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer header = read(channel, 0, MemberSnapshotFormat.HEADER_BYTES);
+            if (header.getInt() != MemberSnapshotFormat.MAGIC || header.getInt() != MemberSnapshotFormat.VERSION) {
+                throw new IOException("not a member snapshot (version " + MemberSnapshotFormat.VERSION + "): " + file);
+            }
+            ByteBuffer trailer = read(channel, size - MemberSnapshotFormat.TRAILER_BYTES,
+                    MemberSnapshotFormat.TRAILER_BYTES);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != MemberSnapshotFormat.MAGIC) {
+                throw new IOException("truncated member snapshot: " + file);
+            }
+
+            ByteBuffer footer = read(channel, footerOffset,
+                    (int) (size - MemberSnapshotFormat.TRAILER_BYTES - footerOffset));
+            int teamCount = footer.getInt();
+            long[] teamIds = new long[teamCount];
+            String[] teamNames = new String[teamCount];
+            for (int i = 0; i < teamCount; i++) {
+                teamIds[i] = footer.getLong();
+                teamNames[i] = MemberSnapshotFormat.getString(footer);
+            }
+            int groupCount = footer.getInt();
+            List<MemberSnapshotFormat.RowGroup> rowGroups = new ArrayList<>(groupCount);
+            for (int i = 0; i < groupCount; i++) {
+                long offset = footer.getLong();
+                int length = footer.getInt();
+                int rowCount = footer.getInt();
+                long minId = footer.getLong();
+                long maxId = footer.getLong();
+                int minAge = footer.getInt();
+                int maxAge = footer.getInt();
+                int[] teamCodes = new int[footer.getInt()];
+                for (int j = 0; j < teamCodes.length; j++) {
+                    teamCodes[j] = footer.getInt();
+                }
+                rowGroups.add(new MemberSnapshotFormat.RowGroup(offset, length, rowCount, minId, maxId, minAge, maxAge,
+                        teamCodes, MemberSnapshotFormat.getString(footer), MemberSnapshotFormat.getString(footer)));
+            }
+            return new MemberSnapshotReader(channel, teamIds, teamNames, rowGroups);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long rows() {
+        return rowGroups.stream().mapToLong(MemberSnapshotFormat.RowGroup::rowCount).sum();
+    }
+
+    public int rowGroupCount() {
+        return rowGroups.size();
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) throws IOException {
+        List<MemberTeamDto> result = new ArrayList<>();
+        scan(condition, result::add);
+        return result;
+    }
+
+    public ScanStats scan(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) throws IOException {
+        String username = hasText(condition.getUsername()) ? condition.getUsername() : null;
+        Set<Integer> teamCodes = hasText(condition.getTeamName()) ? teamCodes(condition.getTeamName()) : null;
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+        byte[] usernameBytes = username == null ? null : username.getBytes(StandardCharsets.UTF_8);
+
+        int read = 0;
+        int skipped = 0;
+        long matched = 0;
+        for (MemberSnapshotFormat.RowGroup group : rowGroups) {
+            if (!mightMatch(group, username, teamCodes, ageGoe, ageLoe)) {
+                skipped++;
+                continue;
+            }
+            read++;
+            ByteBuffer buffer = read(channel, group.offset(), group.length());
+            int rowCount = group.rowCount();
+            int ageWidth = buffer.get();
+            int ageBase = buffer.getInt();
+            int idsAt = buffer.position();
+            int agesAt = idsAt + Long.BYTES * rowCount;
+            int teamsAt = agesAt + ageWidth * rowCount;
+            int lengthsAt = teamsAt + Integer.BYTES * rowCount;
+            int bytesAt = lengthsAt + Integer.BYTES * rowCount;
+
+            int usernameAt = bytesAt;
+            for (int row = 0; row < rowCount; row++) {
+                int length = buffer.getInt(lengthsAt + Integer.BYTES * row);
+                int start = usernameAt;
+                usernameAt += Math.max(length, 0);
+
+                int age = ageBase + switch (ageWidth) {
+                    case 1 -> Byte.toUnsignedInt(buffer.get(agesAt + row));
+                    case 2 -> Short.toUnsignedInt(buffer.getShort(agesAt + 2 * row));
+                    default -> buffer.getInt(agesAt + Integer.BYTES * row);
+                };
+                if ((ageGoe != null && age < ageGoe) || (ageLoe != null && age > ageLoe)) {
+                    continue;
+                }
+                int team = buffer.getInt(teamsAt + Integer.BYTES * row);
+                if (teamCodes != null && !teamCodes.contains(team)) {
+                    continue;
+                }
+                if (usernameBytes != null && (length != usernameBytes.length
+                        || !Arrays.equals(buffer.array(), start, start + length, usernameBytes, 0, length))) {
+                    continue;
+                }
+
+                long memberId = buffer.getLong(idsAt + Long.BYTES * row);
+                String name = length < 0 ? null : new String(buffer.array(), start, length, StandardCharsets.UTF_8);
+                boolean hasTeam = team != MemberSnapshotFormat.NO_TEAM;
+                consumer.accept(new MemberTeamDto(memberId, name, age,
+                        hasTeam ? teamIds[team] : null, hasTeam ? teamNames[team] : null));
+                matched++;
+            }
+        }
+        return new ScanStats(read, skipped, matched);
+    }
+
+    //같은 이름의 팀이 여럿일 수 있음
+    private Set<Integer> teamCodes(String teamName) {
+        Set<Integer> codes = new HashSet<>();
+        for (int i = 0; i < teamNames.length; i++) {
+            if (Objects.equals(teamNames[i], teamName)) {
+                codes.add(i);
+            }
+        }
+        return codes;
+    }
+
+    private static boolean mightMatch(MemberSnapshotFormat.RowGroup group, String username, Set<Integer> teamCodes,
+                                      Integer ageGoe, Integer ageLoe) {
+        if ((ageGoe != null && group.maxAge() < ageGoe) || (ageLoe != null && group.minAge() > ageLoe)) {
+            return false;
+        }
+        if (teamCodes != null && Arrays.stream(group.teamCodes()).noneMatch(teamCodes::contains)) {
+            return false;
+        }
+        return username == null || (group.minUsername() != null
+                && username.compareTo(group.minUsername()) >= 0
+                && username.compareTo(group.maxUsername()) <= 0);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of member snapshot at " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,179 @@
+package study.querydsl.repository.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+//MemberSnapshotFormat 쓰기 - rowGroupSize 행씩 모아서 컬럼별로 채널에 씀 (메모리에는 행 그룹 하나만)
+//팀은 append 전에 team() 으로 사전에 등록 (모르는 팀 id 가 오면 이름 없이 등록)
+public class MemberSnapshotWriter {
+
+    private final FileChannel channel;
+    private final int rowGroupSize;
+    private final Map<Long, Integer> teamCodes = new HashMap<>();
+    private final List<Long> teamIds = new ArrayList<>();
+    private final List<String> teamNames = new ArrayList<>();
+    private final List<MemberSnapshotFormat.RowGroup> rowGroups = new ArrayList<>();
+
+    private final long[] ids;
+    private final int[] ages;
+    private final int[] teams;
+    private final byte[][] usernames;
+    private int size;
+    private long rows;
+    private long position;
+
+    public MemberSnapshotWriter(FileChannel channel, int rowGroupSize) throws IOException {
+        this.channel = channel;
+        this.rowGroupSize = rowGroupSize;
+        this.ids = new long[rowGroupSize];
+        this.ages = new int[rowGroupSize];
+        this.teams = new int[rowGroupSize];
+        this.usernames = new byte[rowGroupSize][];
+
+        ByteBuffer header = ByteBuffer.allocate(MemberSnapshotFormat.HEADER_BYTES);
+        header.putInt(MemberSnapshotFormat.MAGIC).putInt(MemberSnapshotFormat.VERSION);
+        write(header.flip());
+    }
+
+    public void team(long teamId, String name) {
+        if (!teamCodes.containsKey(teamId)) {
+            teamCodes.put(teamId, teamIds.size());
+            teamIds.add(teamId);
+            teamNames.add(name);
+        }
+    }
+
+    public void append(long memberId, String username, int age, Long teamId) throws IOException {
+        if (teamId != null) {
+            team(teamId, null);
+        }
+        ids[size] = memberId;
+        ages[size] = age;
+        teams[size] = teamId == null ? MemberSnapshotFormat.NO_TEAM : teamCodes.get(teamId);
+        usernames[size] = username == null ? null : username.getBytes(StandardCharsets.UTF_8);
+        size++;
+        rows++;
+        if (size == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    //남은 행 그룹과 footer/trailer 를 쓰고 전체 바이트 수를 반환 (채널은 호출자가 닫음)
+    public long finish() throws IOException {
+        flushRowGroup();
+        long footerOffset = position;
+
+        int footerBytes = Integer.BYTES * 2;
+        for (String name : teamNames) {
+            footerBytes += Long.BYTES + MemberSnapshotFormat.stringBytes(name);
+        }
+        for (MemberSnapshotFormat.RowGroup group : rowGroups) {
+            footerBytes += Long.BYTES + Integer.BYTES * 2 + Long.BYTES * 2 + Integer.BYTES * 2
+                    + Integer.BYTES * (1 + group.teamCodes().length)
+                    + MemberSnapshotFormat.stringBytes(group.minUsername())
+                    + MemberSnapshotFormat.stringBytes(group.maxUsername());
+        }
+        ByteBuffer footer = ByteBuffer.allocate(footerBytes + MemberSnapshotFormat.TRAILER_BYTES);
+        footer.putInt(teamIds.size());
+        for (int i = 0; i < teamIds.size(); i++) {
+            footer.putLong(teamIds.get(i));
+            MemberSnapshotFormat.putString(footer, teamNames.get(i));
+        }
+        footer.putInt(rowGroups.size());
+        for (MemberSnapshotFormat.RowGroup group : rowGroups) {
+            footer.putLong(group.offset()).putInt(group.length()).putInt(group.rowCount())
+                    .putLong(group.minId()).putLong(group.maxId())
+                    .putInt(group.minAge()).putInt(group.maxAge())
+                    .putInt(group.teamCodes().length);
+            for (int code : group.teamCodes()) {
+                footer.putInt(code);
+            }
+            MemberSnapshotFormat.putString(footer, group.minUsername());
+            MemberSnapshotFormat.putString(footer, group.maxUsername());
+        }
+        footer.putLong(footerOffset).putInt(MemberSnapshotFormat.MAGIC);
+        write(footer.flip());
+        return position;
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (size == 0) {
+            return;
+        }
+        long minId = Long.MAX_VALUE, maxId = Long.MIN_VALUE;
+        int minAge = Integer.MAX_VALUE, maxAge = Integer.MIN_VALUE;
+        TreeSet<Integer> groupTeams = new TreeSet<>();
+        String minUsername = null, maxUsername = null;
+        int usernameBytes = 0;
+        for (int i = 0; i < size; i++) {
+            minId = Math.min(minId, ids[i]);
+            maxId = Math.max(maxId, ids[i]);
+            minAge = Math.min(minAge, ages[i]);
+            maxAge = Math.max(maxAge, ages[i]);
+            groupTeams.add(teams[i]);
+            if (usernames[i] != null) {
+                usernameBytes += usernames[i].length;
+                String username = new String(usernames[i], StandardCharsets.UTF_8);
+                if (minUsername == null || username.compareTo(minUsername) < 0) {
+                    minUsername = username;
+                }
+                if (maxUsername == null || username.compareTo(maxUsername) > 0) {
+                    maxUsername = username;
+                }
+            }
+        }
+
+        int ageWidth = MemberSnapshotFormat.ageWidth(minAge, maxAge);
+        int length = 1 + Integer.BYTES
+                + Long.BYTES * size
+                + ageWidth * size
+                + Integer.BYTES * size
+                + Integer.BYTES * size + usernameBytes;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put((byte) ageWidth).putInt(minAge);
+        for (int i = 0; i < size; i++) {
+            buffer.putLong(ids[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            int packed = ages[i] - minAge;
+            switch (ageWidth) {
+                case 1 -> buffer.put((byte) packed);
+                case 2 -> buffer.putShort((short) packed);
+                default -> buffer.putInt(packed);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(teams[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(usernames[i] == null ? -1 : usernames[i].length);
+        }
+        for (int i = 0; i < size; i++) {
+            if (usernames[i] != null) {
+                buffer.put(usernames[i]);
+            }
+        }
+
+        rowGroups.add(new MemberSnapshotFormat.RowGroup(position, length, size, minId, maxId, minAge, maxAge,
+                groupTeams.stream().mapToInt(Integer::intValue).toArray(), minUsername, maxUsername));
+        write(buffer.flip());
+        size = 0;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+}
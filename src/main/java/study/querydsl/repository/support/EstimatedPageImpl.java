@@ -0,0 +1,21 @@
+package study.querydsl.repository.support;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+//전체 개수가 정확한 count 인지, 통계 기반 추정치인지 함께 내려주는 Page
+public class EstimatedPageImpl<T> extends PageImpl<T> {
+
+    private final boolean exactTotal;
+
+    public EstimatedPageImpl(List<T> content, Pageable pageable, long total, boolean exactTotal) {
+        super(content, pageable, total);
+        this.exactTotal = exactTotal;
+    }
+
+    public boolean isExactTotal() {
+        return exactTotal;
+    }
+}
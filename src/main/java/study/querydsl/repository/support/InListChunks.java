@@ -0,0 +1,85 @@
+package study.querydsl.repository.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+//IN 절 다건 조회용 - 키를 묶음으로 나누고 묶음 크기를 2의 거듭제곱으로 패딩
+//IN (?, ?, ...) 의 파라미터 개수가 매번 다르면 SQL 문자열이 키 개수만큼 생겨서 statement/plan 캐시가 커지므로
+//패딩하면 SQL 모양이 MIN_CHUNK, 2*MIN_CHUNK, ..., maxChunk 몇 가지로 고정됨
+public final class InListChunks {
+
+    public static final int MIN_CHUNK = 8;
+    public static final int DEFAULT_MAX_CHUNK = 512;
+
+    private InListChunks() {
+    }
+
+    //null/중복 제거 후 maxChunk(2의 거듭제곱) 씩 나누고 마지막 키를 반복해서 패딩
+    public static <K> List<List<K>> of(Collection<K> keys, int maxChunk) {
+        if (Integer.bitCount(maxChunk) != 1 || maxChunk < MIN_CHUNK) {
+            throw new IllegalArgumentException("maxChunk must be a power of two >= " + MIN_CHUNK + ": " + maxChunk);
+        }
+        List<K> distinct = distinct(keys);
+        List<List<K>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += maxChunk) {
+            List<K> chunk = new ArrayList<>(distinct.subList(from, Math.min(distinct.size(), from + maxChunk)));
+            K last = chunk.get(chunk.size() - 1);
+            int padded = paddedSize(chunk.size());
+            while (chunk.size() < padded) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    static int paddedSize(int size) {
+        return Math.max(MIN_CHUNK, Integer.highestOneBit(size - 1) << 1);
+    }
+
+    //조회 결과를 입력 키 순서대로 (키 하나에 여러 건이면 결과 순서 유지, 없는 키는 건너뜀)
+    public static <K, T> List<T> inKeyOrder(Collection<K> keys, List<T> results, Function<T, K> keyOf) {
+        return inKeyOrder(keys, results, keyOf, Function.identity());
+    }
+
+    //DB 가 같다고 보는 키를 같게 맞출 때 - normalize 한 값으로 매칭 (username 은 MemberCollation::key)
+    //IN ('bob') 이 'Bob' 을 찾았으면 입력 'bob' 자리에 넣음, 접으면 같은 입력 키는 처음 자리에 한 번만
+    public static <K, T> List<T> inKeyOrder(Collection<K> keys, List<T> results, Function<T, K> keyOf,
+                                            Function<K, ?> normalize) {
+        Map<Object, List<T>> byKey = new LinkedHashMap<>();
+        for (T result : results) {
+            byKey.computeIfAbsent(normalize.apply(keyOf.apply(result)), k -> new ArrayList<>()).add(result);
+        }
+        List<T> ordered = new ArrayList<>(results.size());
+        Set<Object> seen = new HashSet<>();
+        for (K key : distinct(keys)) {
+            Object normalized = normalize.apply(key);
+            List<T> found = byKey.get(normalized);
+            if (found != null && seen.add(normalized)) {
+                ordered.addAll(found);
+            }
+        }
+        return ordered;
+    }
+
+    //normalize 한 값이 같은 키는 처음 것만 - DB 가 같다고 보는 키를 IN 절에 여러 번 넣어서 같은 행을 또 읽지 않도록
+    public static <K> List<K> distinctBy(Collection<K> keys, Function<K, ?> normalize) {
+        Set<Object> seen = new HashSet<>();
+        return keys.stream()
+                .filter(Objects::nonNull)
+                .filter(key -> seen.add(normalize.apply(key)))
+                .toList();
+    }
+
+    private static <K> List<K> distinct(Collection<K> keys) {
+        return new ArrayList<>(new LinkedHashSet<>(keys.stream().filter(Objects::nonNull).toList()));
+    }
+}
@@ -0,0 +1,13 @@
+package study.querydsl.repository.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//fields= 에 없는 필드를 요청 - 클라이언트 요청 오류(400)로 응답
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidFieldException extends IllegalArgumentException {
+
+    public InvalidFieldException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package study.querydsl.repository.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//묶음 검색 조건 목록이 비었거나 너무 많음 - 클라이언트 요청 오류(400)로 응답
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSearchBatchException extends IllegalArgumentException {
+
+    public InvalidSearchBatchException(String message) {
+        super(message);
+    }
+}
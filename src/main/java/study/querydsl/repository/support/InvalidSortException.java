@@ -0,0 +1,13 @@
+package study.querydsl.repository.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//정렬할 수 없거나 인덱스를 못 타는 정렬 요청 - 클라이언트 요청 오류(400)로 응답
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSortException extends IllegalArgumentException {
+
+    public InvalidSortException(String message) {
+        super(message);
+    }
+}
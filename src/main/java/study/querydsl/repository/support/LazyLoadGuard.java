@@ -0,0 +1,56 @@
+package study.querydsl.repository.support;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//OSIV 를 끈 뒤 트랜잭션 밖에서 지연 로딩(프록시/컬렉션 초기화)을 하면 바로 실패
+//- 열린 EntityManager 가 남아 있어도(직접 만든 EntityManager 등) 트랜잭션 밖에서 커넥션을 새로 잡지 않도록
+//- 응답에 필요한 값은 MemberQueryService 트랜잭션 안에서 DTO 로 채워야 함
+//em.find/JPQL 조회는 막지 않음 (프록시 초기화 IMMEDIATE_LOAD 와 컬렉션 초기화만)
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "member.lazy-load-guard.enabled", havingValue = "true", matchIfMissing = true)
+public class LazyLoadGuard implements LoadEventListener, InitializeCollectionEventListener {
+
+    private final EntityManagerFactory emf;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.prependListeners(EventType.LOAD, this);
+        registry.prependListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+            check(event.getEntityClassName() + "#" + event.getEntityId());
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        check(event.getCollection().getRole());
+    }
+
+    private static void check(String target) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new LazyInitializationException("lazy loading " + target
+                    + " outside a transaction - assemble the response in a read-only transaction (MemberQueryService)");
+        }
+    }
+}
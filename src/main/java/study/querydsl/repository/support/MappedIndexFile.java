@@ -0,0 +1,112 @@
+package study.querydsl.repository.support;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+//프로세스 내 인덱스(블룸 필터 등) 저장 파일 - 재시작 때 전체 테이블 스캔 대신 파일 + 변경분만 따라잡기
+//
+//  magic(int) formatVersion(int) kind(short 길이 + UTF-8) indexVersion(int)
+//  watermark: maxId(long) maxModifiedAt(long, epoch ms) / payloadLength(long) / payload
+//
+//- 쓰기: 임시 파일을 크기만큼 매핑해서 payload 를 바로 기록 -> force -> 원자적 이동 (중간에 죽어도 이전 파일 유지)
+//- 읽기: 읽기 전용 MappedByteBuffer - 실제로 읽는 페이지만 OS 가 올림
+//- kind/indexVersion 이 다르거나 깨진 파일이면 없는 것으로 취급 (호출자가 새로 생성)
+public final class MappedIndexFile {
+
+    private static final int MAGIC = 0x4D494458; //"MIDX"
+    private static final int FORMAT_VERSION = 1;
+
+    private MappedIndexFile() {
+    }
+
+    //파일에 반영된 마지막 변경 - 이후 id 가 더 크거나 modified_at 이 더 늦은 행만 따라잡으면 됨
+    public record Watermark(long maxId, long maxModifiedAtMillis) {
+    }
+
+    public record Loaded(Watermark watermark, ByteBuffer payload) {
+    }
+
+    //payload 크기를 정한 뒤 allocate 를 한 번 호출해서 받은 버퍼에 기록
+    public interface PayloadWriter {
+        ByteBuffer allocate(long payloadLength) throws IOException;
+    }
+
+    public interface Payload {
+        void writeTo(PayloadWriter writer) throws IOException;
+    }
+
+    public static void write(Path file, String kind, int indexVersion, Watermark watermark, Payload payload)
+            throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                byte[] kindBytes = kind.getBytes(StandardCharsets.UTF_8);
+                int headerBytes = Integer.BYTES * 2 + Short.BYTES + kindBytes.length + Integer.BYTES + Long.BYTES * 3;
+                MappedByteBuffer[] mapped = new MappedByteBuffer[1];
+                payload.writeTo(payloadLength -> {
+                    if (headerBytes + payloadLength > Integer.MAX_VALUE) {
+                        throw new IOException("index too large to map: " + payloadLength + " bytes");
+                    }
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerBytes + payloadLength);
+                    buffer.putInt(MAGIC).putInt(FORMAT_VERSION)
+                            .putShort((short) kindBytes.length).put(kindBytes)
+                            .putInt(indexVersion)
+                            .putLong(watermark.maxId()).putLong(watermark.maxModifiedAtMillis())
+                            .putLong(payloadLength);
+                    mapped[0] = buffer;
+                    return buffer;
+                });
+                if (mapped[0] == null) {
+                    throw new IOException("index payload was not written: " + kind);
+                }
+                mapped[0].force();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static Optional<Loaded> load(Path file, String kind, int indexVersion) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            //매핑은 채널을 닫아도 유지됨
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            byte[] kindBytes = new byte[buffer.getShort()];
+            buffer.get(kindBytes);
+            if (!kind.equals(new String(kindBytes, StandardCharsets.UTF_8)) || buffer.getInt() != indexVersion) {
+                return Optional.empty();
+            }
+            Watermark watermark = new Watermark(buffer.getLong(), buffer.getLong());
+            long payloadLength = buffer.getLong();
+            if (payloadLength != buffer.remaining()) {
+                return Optional.empty();
+            }
+            return Optional.of(new Loaded(watermark, buffer.slice()));
+        } catch (RuntimeException e) {
+            //BufferUnderflowException 등 - 잘린 파일
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.repository.support;
+
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+//member.username / team.name 을 Java 쪽에서 비교/정렬할 때 DB 컬럼 collation 과 같은 규칙으로
+//MySQL 8 기본 utf8mb4_0900_ai_ci 는 대소문자/악센트를 무시하는 UCA 비교 - 'Bob' = 'bob' = 'böb'
+//String.compareTo / equals 는 코드 포인트 비교라 DB 가 같다고/앞이라고 본 값을 다르게 봄
+//- ORDER: UCA 기반 Collator 의 1차(primary) 강도 비교 - 정렬 결과 병합용
+//- key: 대소문자/악센트를 접은 문자열 - Map 키, 블룸 필터 해시 등 같음 비교용 (ORDER 가 0 이면 같은 key)
+public final class MemberCollation {
+
+    public static final Comparator<String> ORDER = collator()::compare;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private MemberCollation() {
+    }
+
+    //분해(NFD) 후 결합 문자(악센트) 제거, 대문자로 한 번 바꿨다가 소문자로 ('ß' -> "SS" -> "ss")
+    public static String key(String value) {
+        if (value == null) {
+            return null;
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return stripped.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    private static Collator collator() {
+        //compare 는 내부에서 동기화되므로 공유해도 됨
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.PRIMARY);
+        return collator;
+    }
+}
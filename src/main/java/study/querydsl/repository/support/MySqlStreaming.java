@@ -0,0 +1,14 @@
+package study.querydsl.repository.support;
+
+//전체 스캔(스냅샷 내보내기, username 블룸 필터 생성/따라잡기)용 fetch size
+//MySQL Connector/J 는 useCursorFetch 없이는 setFetchSize(1000) 같은 값을 무시하고 결과 전체를 메모리로 읽음
+//Integer.MIN_VALUE 면 한 행씩 스트리밍 - forward-only + read-only 결과에서만, 다 읽을 때까지 그 커넥션으로 다른 쿼리 불가
+//useCursorFetch=true 는 모든 PreparedStatement 를 서버 prepared statement 로 바꿔서
+//JDBC batch update 의 rewriteBatchedStatements 재작성을 잃으므로 URL 옵션 대신 스캔하는 쿼리에만 적용
+public final class MySqlStreaming {
+
+    public static final int FETCH_SIZE = Integer.MIN_VALUE;
+
+    private MySqlStreaming() {
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.repository.support;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//병렬 조회 전용 스레드풀 - 스레드 수 = 병렬 조회가 동시에 점유할 수 있는 커넥션 수
+//Executor 빈으로 직접 등록하면 스프링 부트의 applicationTaskExecutor 자동 설정이 꺼지기 때문에 감싸서 등록
+//제출한 스레드의 QueryScope(query timeout/취소), QueryBudget(SQL 집계)을 작업 스레드로 전달
+@Component
+public class ParallelQueryExecutor {
+
+    //이 풀의 작업 스레드인지 - 작업 안에서 같은 풀에 다시 제출하고 기다리지 않도록
+    private static final ThreadLocal<Boolean> WORKER = ThreadLocal.withInitial(() -> false);
+
+    private final ExecutorService executor;
+
+    public ParallelQueryExecutor(@Value("${member.query.threads:8}") int threads) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("member-query-")) {
+            @Override
+            public void execute(Runnable command) {
+                super.execute(QueryScope.propagate(QueryBudget.propagate(command)));
+            }
+
+            @Override
+            protected void beforeExecute(Thread thread, Runnable task) {
+                WORKER.set(true);
+            }
+        };
+    }
+
+    public static boolean onWorkerThread() {
+        return WORKER.get();
+    }
+
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,144 @@
+package study.querydsl.repository.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//요청(또는 테스트 구간) 하나에서 실행한 SQL 수, 읽은 행 수, DB 시간 집계 - QueryBudgetListener(p6spy)가 채움
+//FAIL 이면 한도를 넘는 순간 예외, 아니면 끝난 뒤 exceeded() 로 확인 (LOG/HEADER 처리는 호출자)
+//ParallelQueryExecutor 작업에는 propagate 로 따라감
+public final class QueryBudget implements AutoCloseable {
+
+    private static final ThreadLocal<QueryBudget> CURRENT = new ThreadLocal<>();
+
+    public enum Mode {
+        LOG, HEADER, FAIL
+    }
+
+    public record Limits(long maxStatements, long maxRows, long maxDbTimeMillis) {
+
+        public static final Limits UNLIMITED = new Limits(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    private volatile Limits limits;
+    private final boolean failFast;
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong dbNanos = new AtomicLong();
+    private final QueryBudget previous;
+
+    private QueryBudget(Limits limits, boolean failFast) {
+        this.limits = limits;
+        this.failFast = failFast;
+        this.previous = CURRENT.get();
+        CURRENT.set(this);
+    }
+
+    //집계만 (테스트에서 statements()/rows() 로 검증)
+    public static QueryBudget open() {
+        return new QueryBudget(Limits.UNLIMITED, false);
+    }
+
+    public static QueryBudget open(Limits limits, Mode mode) {
+        return new QueryBudget(limits, mode == Mode.FAIL);
+    }
+
+    public static QueryBudget current() {
+        return CURRENT.get();
+    }
+
+    public static Runnable propagate(Runnable task) {
+        QueryBudget budget = CURRENT.get();
+        if (budget == null) {
+            return task;
+        }
+        return () -> {
+            QueryBudget previous = CURRENT.get();
+            CURRENT.set(budget);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    //요청 하나가 검색 여러 건(묶음 검색)이면 행 수/DB 시간 한도를 검색 수만큼 늘림 (문장 수 한도는 그대로)
+    public void scaleFor(int searches) {
+        Limits current = limits;
+        limits = new Limits(current.maxStatements(), multiply(current.maxRows(), searches),
+                multiply(current.maxDbTimeMillis(), searches));
+    }
+
+    private static long multiply(long limit, int factor) {
+        return limit > Long.MAX_VALUE / Math.max(1, factor) ? Long.MAX_VALUE : limit * Math.max(1, factor);
+    }
+
+    public long statements() {
+        return statements.get();
+    }
+
+    public long rows() {
+        return rows.get();
+    }
+
+    public long dbTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(dbNanos.get());
+    }
+
+    //한도를 넘은 항목 (넘지 않았으면 빈 목록)
+    public List<String> exceeded() {
+        List<String> exceeded = new ArrayList<>();
+        if (statements() > limits.maxStatements()) {
+            exceeded.add("statements " + statements() + " > " + limits.maxStatements());
+        }
+        if (rows() > limits.maxRows()) {
+            exceeded.add("rows " + rows() + " > " + limits.maxRows());
+        }
+        if (dbTimeMillis() > limits.maxDbTimeMillis()) {
+            exceeded.add("dbTimeMs " + dbTimeMillis() + " > " + limits.maxDbTimeMillis());
+        }
+        return exceeded;
+    }
+
+    void beforeStatement(String sql) {
+        if (failFast && statements() >= limits.maxStatements()) {
+            throw new QueryBudgetExceededException("statement budget " + limits.maxStatements() + " exceeded by: " + sql);
+        }
+    }
+
+    void afterStatement(long elapsedNanos) {
+        statements.incrementAndGet();
+        dbNanos.addAndGet(elapsedNanos);
+        failIfExceeded();
+    }
+
+    void afterRow(long elapsedNanos) {
+        rows.incrementAndGet();
+        dbNanos.addAndGet(elapsedNanos);
+        failIfExceeded();
+    }
+
+    private void failIfExceeded() {
+        if (failFast) {
+            List<String> exceeded = exceeded();
+            if (!exceeded.isEmpty()) {
+                throw new QueryBudgetExceededException("query budget exceeded: " + exceeded);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package study.querydsl.repository.support;
+
+//FAIL 모드에서 요청의 SQL 수/행 수/DB 시간 한도 초과 - 서버 쪽 회귀(N+1, 중복 쿼리)이므로 500
+public class QueryBudgetExceededException extends IllegalStateException {
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.repository.support;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+//p6spy 로 감싼 DataSource 의 JDBC 이벤트를 현재 QueryBudget 에 집계 (p6spy 스타터가 빈으로 등록된 리스너를 사용)
+@Component
+public class QueryBudgetListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        QueryBudget budget = QueryBudget.current();
+        if (budget != null) {
+            budget.beforeStatement(statementInformation.getSql());
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryBudget budget = QueryBudget.current();
+        if (budget != null) {
+            budget.afterStatement(timeElapsedNanos);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        QueryBudget budget = QueryBudget.current();
+        if (budget != null && hasNext) {
+            budget.afterRow(timeElapsedNanos);
+        }
+    }
+}
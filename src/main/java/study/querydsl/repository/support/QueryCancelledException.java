@@ -0,0 +1,14 @@
+package study.querydsl.repository.support;
+
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//요청이 취소되어(클라이언트 연결 끊김, 취소 API) 더 이상 쿼리를 실행하지 않음
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class QueryCancelledException extends TransientDataAccessException {
+
+    public QueryCancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,174 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.AbstractJPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//요청 하나의 조회 범위 - 마감 시각(deadline)과 그 요청이 쿼리를 실행한 세션들
+//- 이 스코프 안에서 만든 JPAQuery 에는 남은 시간을 query timeout 힌트로 (JDBC Statement.setQueryTimeout)
+//- cancel() 하면 실행 중인 쿼리를 Session.cancelQuery() (-> Statement.cancel()) 로 취소
+//요청 스레드에 ThreadLocal 로 붙고, ParallelQueryExecutor 작업에는 propagate 로 따라감
+//취소 대상 세션은 트랜잭션(또는 직접 연 EntityManager)에 묶인 세션뿐
+//트랜잭션 없이 스프링 공유 EntityManager 로 실행한 쿼리(SUPPORTS 인 searchPage, 트랜잭션 밖 청크 조회 등)는
+//쿼리마다 세션이 열리고 닫혀서 등록할 수 없음 - 실행 중인 쿼리는 timeout 힌트로만 끝나고, cancel 뒤의 쿼리는 보내지 않음
+public class QueryScope implements AutoCloseable {
+
+    public static final String TIMEOUT_HINT = "jakarta.persistence.query.timeout";
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    private final String requestId;
+    private final long deadlineNanos;
+    private final QueryScopeRegistry registry;
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    QueryScope(String requestId, long timeoutMillis, QueryScopeRegistry registry) {
+        this.requestId = requestId;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.registry = registry;
+    }
+
+    public static QueryScope current() {
+        return CURRENT.get();
+    }
+
+    public QueryScope attach() {
+        CURRENT.set(this);
+        return this;
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    //작업을 제출한 스레드의 스코프를 작업 스레드에서도 사용
+    public static Runnable propagate(Runnable task) {
+        QueryScope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            QueryScope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    //현재 스코프가 있으면 남은 시간을 timeout 힌트로 걸고 em 의 세션을 취소 대상으로 등록
+    public static <Q extends AbstractJPAQuery<?, Q>> Q apply(Q query, EntityManager em) {
+        QueryScope scope = CURRENT.get();
+        if (scope == null) {
+            return query;
+        }
+        long remaining = scope.remainingMillis();
+        scope.track(em);
+        //JDBC query timeout 은 초 단위라서 초 단위로 올림 (0 이면 timeout 없음이 되므로 최소 1초)
+        return query.setHint(TIMEOUT_HINT, Math.max(1, (remaining + 999) / 1000) * 1000);
+    }
+
+    //QueryDSL 로 표현할 수 없는 HQL(union all 등)용 - 위와 같음
+    public static <T extends Query> T apply(T query, EntityManager em) {
+        QueryScope scope = CURRENT.get();
+        if (scope == null) {
+            return query;
+        }
+        long remaining = scope.remainingMillis();
+        scope.track(em);
+        query.setHint(TIMEOUT_HINT, Math.max(1, (remaining + 999) / 1000) * 1000);
+        return query;
+    }
+
+    public String requestId() {
+        return requestId;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    //남은 시간(ms) - 이미 지났거나 취소됐으면 쿼리를 보내지 않고 예외
+    public long remainingMillis() {
+        if (cancelled) {
+            throw new QueryCancelledException("query scope " + requestId + " was cancelled");
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("query deadline exceeded for request " + requestId);
+        }
+        return remaining;
+    }
+
+    //스프링 공유 EntityManager 프록시면 트랜잭션/OSIV 로 묶인 실제 EntityManager 가 있을 때만 (없으면 쿼리마다 새로 열리고 닫힘)
+    //리포트처럼 범위마다 트랜잭션을 여는 요청은 세션이 계속 쌓이므로 트랜잭션이 끝나면 등록 해제
+    //트랜잭션 동기화가 없는 세션(샤드처럼 직접 연 EntityManager)은 다음 등록 때 닫힌 것들을 정리
+    private void track(EntityManager em) {
+        EntityManager target = em instanceof EntityManagerProxy
+                ? EntityManagerFactoryUtils.getTransactionalEntityManager(em.getEntityManagerFactory())
+                : em;
+        if (target == null) {
+            return;
+        }
+        Session session = target.unwrap(Session.class);
+        if (!sessions.add(session)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    sessions.remove(session);
+                }
+            });
+        } else {
+            sessions.removeIf(tracked -> !tracked.isOpen());
+        }
+    }
+
+    //실행 중인 쿼리를 취소하고 이후 쿼리도 막음, 취소 요청을 보낸 세션이 있으면 true
+    //세션마다 따로 - 닫힌 세션은 건너뛰고, 한 세션이 실패해도(닫히는 중이면 IllegalStateException) 나머지는 취소
+    public boolean cancel() {
+        cancelled = true;
+        boolean any = false;
+        for (Session session : sessions) {
+            if (!session.isOpen()) {
+                sessions.remove(session);
+                continue;
+            }
+            try {
+                session.cancelQuery();
+                any = true;
+            } catch (RuntimeException e) {
+                //이미 끝난 쿼리이거나 그 사이 닫힌 세션 - 무시
+            }
+        }
+        return any;
+    }
+
+    @Override
+    public void close() {
+        registry.remove(this);
+        sessions.clear();
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+}
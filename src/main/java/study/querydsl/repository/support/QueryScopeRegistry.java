@@ -0,0 +1,65 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//요청 id -> 진행 중인 QueryScope (취소 API 용) + timeout/취소 카운터
+@Component
+public class QueryScopeRegistry {
+
+    private final Map<String, QueryScope> scopes = new ConcurrentHashMap<>();
+    private final long defaultTimeoutMillis;
+    private final Counter timedOut;
+    private final Counter cancelled;
+
+    public QueryScopeRegistry(MeterRegistry meterRegistry,
+                              @Value("${member.query.timeout-ms:3000}") long defaultTimeoutMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.timedOut = Counter.builder("member.query.timeouts")
+                .description("Member queries aborted by the request query deadline")
+                .register(meterRegistry);
+        this.cancelled = Counter.builder("member.query.cancelled")
+                .description("Requests whose running member queries were cancelled")
+                .register(meterRegistry);
+    }
+
+    public long defaultTimeoutMillis() {
+        return defaultTimeoutMillis;
+    }
+
+    public QueryScope open(String requestId, long timeoutMillis) {
+        QueryScope scope = new QueryScope(requestId, timeoutMillis, this);
+        scopes.put(requestId, scope);
+        return scope;
+    }
+
+    //요청 id 의 실행 중인 쿼리 취소 - 진행 중인 요청이 없으면 false
+    public boolean cancel(String requestId) {
+        QueryScope scope = scopes.get(requestId);
+        if (scope == null) {
+            return false;
+        }
+        cancel(scope);
+        return true;
+    }
+
+    public void cancel(QueryScope scope) {
+        if (!scope.isCancelled()) {
+            scope.cancel();
+            cancelled.increment();
+        }
+    }
+
+    public void timedOut() {
+        timedOut.increment();
+    }
+
+    void remove(QueryScope scope) {
+        scopes.remove(scope.requestId(), scope);
+    }
+}
@@ -2,7 +2,10 @@ package study.querydsl.repository.support;
 
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.Wildcard;
+import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.annotation.PostConstruct;
@@ -10,6 +13,8 @@ import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -18,6 +23,7 @@ import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.util.Assert;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 
 public abstract class Querydsl4RepositorySupport {
@@ -26,6 +32,7 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private SortPlanner sortPlanner;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -41,7 +48,13 @@ public abstract class Querydsl4RepositorySupport {
         EntityPath<?> path = resolver.createPath(entityInformation.getJavaType());
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+
+    //빈으로 등록된 TimeoutJPAQueryFactory - 요청별 query timeout/취소가 적용됨
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        this.queryFactory = queryFactory;
     }
 
     @PostConstruct
@@ -51,6 +64,11 @@ public abstract class Querydsl4RepositorySupport {
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
     }
 
+    //설정하면 클라이언트 Sort 를 그대로 order by 로 쓰지 않고 SortPlanner 를 거침
+    protected void setSortPlanner(SortPlanner sortPlanner) {
+        this.sortPlanner = sortPlanner;
+    }
+
     protected JPAQueryFactory getQueryFactory() {
         return queryFactory;
     }
@@ -74,19 +92,64 @@ public abstract class Querydsl4RepositorySupport {
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery<T>> contentQuery) {
         JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
+        //paginate 가 jpaQuery 에 offset/limit 을 걸기 전에 count 쿼리로 복사 (전체 행을 두 번 가져오던 clone().fetch().size() 대신 count(*) 한 번)
+        JPAQuery<Long> countQuery = jpaQuery.clone().select(Wildcard.count);
+        List<T> content = paginate(pageable, jpaQuery).fetch();
 
-        return PageableExecutionUtils.getPage(content, pageable,
-                () -> jpaQuery.clone().fetch().size() > 0 ? jpaQuery.clone().fetch().size() : 0L);
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery<T>> contentQuery,
                                           Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
         JPAQuery<T> jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+        List<T> content = paginate(pageable, jpaContentQuery).fetch();
 
         return PageableExecutionUtils.getPage(content, pageable,
                 () -> countQuery.apply(getQueryFactory()).fetchOne());
     }
+
+    //count 쿼리 없이 limit + 1 조회로 다음 페이지 여부만 판단 (무한 스크롤용)
+    protected <T> Slice<T> applySlicing(Pageable pageable,
+                                        Function<JPAQueryFactory, JPAQuery<T>> contentQuery) {
+        JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+        if (pageable.isUnpaged()) {
+            return SliceExecutionUtils.getSlice(jpaQuery.fetch(), pageable);
+        }
+        List<T> content = sort(pageable.getSort(), jpaQuery)
+                .offset(pageable.getOffset())
+                .limit(SliceExecutionUtils.lookAheadLimit(pageable))
+                .fetch();
+
+        return SliceExecutionUtils.getSlice(content, pageable);
+    }
+
+    //조건에 맞는 행이 있는지만 - select 1 ... limit 1 (count(*) 나 fetch().size() 처럼 전부 세거나 읽지 않음)
+    //query 의 select 절은 1 로 바꾸고, 첫 행만 보면 되므로 정렬도 뺌
+    protected boolean exists(Function<JPAQueryFactory, JPAQuery<?>> query) {
+        JPAQuery<?> jpaQuery = query.apply(getQueryFactory());
+        jpaQuery.getMetadata().clearOrderBy();
+        return jpaQuery.select(Expressions.ONE).fetchFirst() != null;
+    }
+
+    //첫 결과 하나만 (limit 1) - 정렬은 query 에 지정한 그대로
+    protected <T> Optional<T> findFirst(Function<JPAQueryFactory, JPAQuery<T>> query) {
+        return Optional.ofNullable(query.apply(getQueryFactory()).fetchFirst());
+    }
+
+    private <T> JPQLQuery<T> paginate(Pageable pageable, JPAQuery<T> query) {
+        if (pageable.isUnpaged()) {
+            return sort(pageable.getSort(), query);
+        }
+        return sort(pageable.getSort(), query)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+    }
+
+    private <T> JPQLQuery<T> sort(Sort sort, JPAQuery<T> query) {
+        if (sortPlanner == null) {
+            return getQuerydsl().applySorting(sort, query);
+        }
+        return query.orderBy(sortPlanner.plan(sort));
+    }
 }
@@ -0,0 +1,97 @@
+package study.querydsl.repository.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//락 없는 다중 생산자/다중 소비자 링 버퍼
+//- 생산자는 시퀀스를 getAndIncrement 로 받아 슬롯에 (시퀀스, 값) 을 CAS 로 기록 -> 절대 블로킹되지 않음
+//- 소비자는 각자 Cursor 로 읽고, 느린 소비자는 덮어쓰인 구간을 건너뛰고 유실 건수를 받음 (overrun)
+public class RingBuffer<T> {
+
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final int mask;
+
+    private record Slot<T>(long sequence, T value) {
+    }
+
+    //소비자가 덮어쓰인 이벤트를 만났을 때 호출
+    public interface OverrunHandler {
+        void onOverrun(long lost);
+    }
+
+    public RingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public long publish(T value) {
+        long sequence = claim();
+        write(sequence, value);
+        return sequence;
+    }
+
+    long claim() {
+        return nextSequence.getAndIncrement();
+    }
+
+    //시퀀스를 받은 뒤 멈춰 있던 생산자가 그 사이 한 바퀴 이상 앞선 값을 덮어쓰지 않도록 CAS
+    //슬롯에 더 큰 시퀀스가 있으면 이 값은 이미 덮어쓰인 것으로 보고 버림 (소비자에게는 overrun)
+    void write(long sequence, T value) {
+        int index = (int) (sequence & mask);
+        Slot<T> next = new Slot<>(sequence, value);
+        while (true) {
+            Slot<T> current = slots.get(index);
+            if (current != null && current.sequence() > sequence) {
+                return;
+            }
+            if (slots.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    //지금 이후에 발행되는 값부터 읽는 커서
+    public Cursor cursor() {
+        return new Cursor(nextSequence.get());
+    }
+
+    //커서 하나는 한 스레드에서만 사용
+    public final class Cursor {
+
+        private long next;
+
+        private Cursor(long next) {
+            this.next = next;
+        }
+
+        //다음 값이 아직 발행 전이면 null
+        public T poll(OverrunHandler overrunHandler) {
+            Slot<T> slot = slots.get((int) (next & mask));
+            if (slot == null || slot.sequence() < next) {
+                return null;
+            }
+            if (slot.sequence() > next) {
+                //한 바퀴 이상 뒤처짐 - 아직 남아있는 가장 오래된 시퀀스로 이동
+                long oldest = Math.max(next, nextSequence.get() - capacity());
+                overrunHandler.onOverrun(oldest - next);
+                next = oldest;
+                return poll(overrunHandler);
+            }
+            next++;
+            return slot.value();
+        }
+
+        //아직 읽지 않은 발행 건수 (대략값)
+        public long lag() {
+            return Math.max(0, nextSequence.get() - next);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package study.querydsl.repository.support;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//삭제를 지원하는(counting) + 크기가 늘어나는(scalable) 블룸 필터
+//- 카운터는 4비트씩 long 하나에 16개, 15 에서 포화 (포화된 카운터는 줄이지 않음 -> 거짓 음성 없음)
+//- 층(layer)이 가득 차면 용량 2배, 오탐률 절반인 층을 새로 추가 (p/2 + p/4 + ... -> 전체 오탐률은 목표 p 이내)
+//- mightContain 이 false 면 확실히 없음, true 면 있을 수도 있음
+//- 삭제는 그 값을 포함한 층이 하나뿐일 때만 (여러 층에 걸리면 어느 층에 넣었는지 모르므로 남겨 둠 -> 오탐만 늘어남)
+//- writeTo/readFrom 으로 MappedIndexFile 에 저장/복원 (층마다 설정값 + 카운터 long[])
+//  readFrom 은 카운터를 힙으로 복사하지 않고 매핑된 버퍼를 그대로 읽음 - 조회가 건드린 페이지만 OS 가 올림
+//  층의 카운터가 처음 바뀔 때(add/remove) 그 층만 힙 long[] 으로 복사 (copy-on-first-write, 매핑은 읽기 전용)
+//  새 층은 마지막 층에만 추가되므로 따라잡기 동안 복사되는 것은 보통 마지막 층뿐
+//  저장은 임시 파일 + 원자적 이동이라 매핑된 이전 파일(inode)은 그대로 유지됨
+public class ScalableCountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    private final double initialFalsePositiveRate;
+    private final List<Layer> layers = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ScalableCountingBloomFilter(long initialCapacity, double falsePositiveRate) {
+        this.initialFalsePositiveRate = falsePositiveRate;
+        layers.add(new Layer(Math.max(64, initialCapacity), falsePositiveRate / 2));
+    }
+
+    private ScalableCountingBloomFilter(double falsePositiveRate, List<Layer> layers) {
+        this.initialFalsePositiveRate = falsePositiveRate;
+        this.layers.addAll(layers);
+    }
+
+    //저장 중에 층이 늘어나지 않도록 읽기 락 안에서 크기 계산 + 기록
+    public void writeTo(MappedIndexFile.PayloadWriter writer) throws IOException {
+        lock.readLock().lock();
+        try {
+            long size = Double.BYTES + Integer.BYTES;
+            for (Layer layer : layers) {
+                size += Layer.HEADER_BYTES + (long) layer.wordCount * Long.BYTES;
+            }
+            ByteBuffer buffer = writer.allocate(size);
+            buffer.putDouble(initialFalsePositiveRate).putInt(layers.size());
+            for (Layer layer : layers) {
+                buffer.putLong(layer.capacity).putDouble(layer.falsePositiveRate).putInt(layer.counters)
+                        .putInt(layer.hashes).putLong(layer.count).putInt(layer.wordCount);
+                if (layer.words != null) {
+                    buffer.asLongBuffer().put(layer.words);
+                } else {
+                    buffer.asLongBuffer().put(layer.mapped.duplicate());
+                }
+                buffer.position(buffer.position() + layer.wordCount * Long.BYTES);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static ScalableCountingBloomFilter readFrom(ByteBuffer buffer) {
+        double falsePositiveRate = buffer.getDouble();
+        int layerCount = buffer.getInt();
+        List<Layer> layers = new ArrayList<>(layerCount);
+        for (int i = 0; i < layerCount; i++) {
+            long capacity = buffer.getLong();
+            double layerRate = buffer.getDouble();
+            int counters = buffer.getInt();
+            int hashes = buffer.getInt();
+            long count = buffer.getLong();
+            int wordCount = buffer.getInt();
+            LongBuffer mapped = buffer.slice(buffer.position(), wordCount * Long.BYTES).asLongBuffer();
+            buffer.position(buffer.position() + wordCount * Long.BYTES);
+            layers.add(new Layer(capacity, layerRate, counters, hashes, mapped, count));
+        }
+        return new ScalableCountingBloomFilter(falsePositiveRate, layers);
+    }
+
+    public boolean mightContain(String value) {
+        long[] hash = hash(value);
+        lock.readLock().lock();
+        try {
+            for (Layer layer : layers) {
+                if (layer.contains(hash)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(String value) {
+        long[] hash = hash(value);
+        lock.writeLock().lock();
+        try {
+            Layer current = layers.get(layers.size() - 1);
+            if (current.count >= current.capacity) {
+                current = new Layer(current.capacity * 2, current.falsePositiveRate / 2);
+                layers.add(current);
+            }
+            current.add(hash);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String value) {
+        long[] hash = hash(value);
+        lock.writeLock().lock();
+        try {
+            Layer found = null;
+            for (Layer layer : layers) {
+                if (layer.contains(hash)) {
+                    if (found != null) {
+                        return;
+                    }
+                    found = layer;
+                }
+            }
+            if (found != null) {
+                found.remove(hash);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //층별 (1 - e^(-kn/m))^k 로 추정한 현재 오탐률
+    public double expectedFalsePositiveRate() {
+        lock.readLock().lock();
+        try {
+            double allNegative = 1.0;
+            for (Layer layer : layers) {
+                double layerRate = Math.pow(1 - Math.exp(-(double) layer.hashes * layer.count / layer.counters), layer.hashes);
+                allNegative *= 1 - layerRate;
+            }
+            return 1 - allNegative;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //카운터 크기 (매핑된 층 포함)
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return layers.stream().mapToLong(layer -> (long) layer.wordCount * Long.BYTES).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //힙으로 복사된 층 수 (나머지는 매핑된 파일을 그대로 읽음)
+    public int heapLayerCount() {
+        lock.readLock().lock();
+        try {
+            return (int) layers.stream().filter(layer -> layer.words != null).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int layerCount() {
+        lock.readLock().lock();
+        try {
+            return layers.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double initialFalsePositiveRate() {
+        return initialFalsePositiveRate;
+    }
+
+    //FNV-1a 64 + fmix64 로 두 개의 해시를 만들고 g_i = h1 + i * h2 (Kirsch-Mitzenmacher)
+    private static long[] hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return new long[]{fmix64(h), fmix64(h ^ 0x9E3779B97F4A7C15L) | 1};
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static final class Layer {
+
+        private static final int HEADER_BYTES = Long.BYTES + Double.BYTES + Integer.BYTES * 2 + Long.BYTES + Integer.BYTES;
+
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final int counters;
+        private final int hashes;
+        private final int wordCount;
+        //힙 카운터 - 파일에서 읽은 층은 처음 바뀔 때까지 null 이고 mapped 를 읽음
+        private long[] words;
+        private final LongBuffer mapped;
+        private long count;
+
+        private Layer(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            //m = -n ln p / (ln 2)^2, k = m/n ln 2
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.counters = (int) Math.min(Integer.MAX_VALUE - COUNTERS_PER_WORD, Math.max(COUNTERS_PER_WORD, bits));
+            this.hashes = Math.max(1, (int) Math.round((double) counters / capacity * Math.log(2)));
+            this.wordCount = (counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD;
+            this.words = new long[wordCount];
+            this.mapped = null;
+        }
+
+        private Layer(long capacity, double falsePositiveRate, int counters, int hashes, LongBuffer mapped, long count) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            this.counters = counters;
+            this.hashes = hashes;
+            this.wordCount = mapped.capacity();
+            this.words = null;
+            this.mapped = mapped;
+            this.count = count;
+        }
+
+        private boolean contains(long[] hash) {
+            for (int i = 0; i < hashes; i++) {
+                if (get(index(hash, i)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void add(long[] hash) {
+            for (int i = 0; i < hashes; i++) {
+                int index = index(hash, i);
+                long value = get(index);
+                if (value < COUNTER_MASK) {
+                    set(index, value + 1);
+                }
+            }
+            count++;
+        }
+
+        private void remove(long[] hash) {
+            for (int i = 0; i < hashes; i++) {
+                int index = index(hash, i);
+                long value = get(index);
+                if (value > 0 && value < COUNTER_MASK) {
+                    set(index, value - 1);
+                }
+            }
+            count = Math.max(0, count - 1);
+        }
+
+        private int index(long[] hash, int i) {
+            return (int) Math.floorMod(hash[0] + i * hash[1], (long) counters);
+        }
+
+        //읽기 락(조회) 또는 쓰기 락(변경) 안에서만 호출 - mapped 는 절대 위치로만 읽으므로 여러 스레드가 같이 읽어도 됨
+        private long get(int index) {
+            int shift = (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+            int word = index / COUNTERS_PER_WORD;
+            return ((words != null ? words[word] : mapped.get(word)) >>> shift) & COUNTER_MASK;
+        }
+
+        //쓰기 락 안에서만 호출
+        private void set(int index, long value) {
+            if (words == null) {
+                words = new long[wordCount];
+                mapped.get(0, words);
+            }
+            int word = index / COUNTERS_PER_WORD;
+            int shift = (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+            words[word] = (words[word] & ~(COUNTER_MASK << shift)) | (value << shift);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.repository.support;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//count 쿼리 없이 Slice를 만드는 유틸 (PageableExecutionUtils 의 Slice 버전)
+//pageSize + 1 건을 조회해서 한 건이 더 있으면 다음 페이지가 있다고 판단
+public abstract class SliceExecutionUtils {
+
+    private SliceExecutionUtils() {
+    }
+
+    //다음 페이지 존재 여부 확인용으로 한 건 더 조회
+    public static long lookAheadLimit(Pageable pageable) {
+        return pageable.getPageSize() + 1L;
+    }
+
+    public static <T> Slice<T> getSlice(List<T> content, Pageable pageable) {
+        if (pageable.isUnpaged() || content.size() <= pageable.getPageSize()) {
+            return new SliceImpl<>(content, pageable, false);
+        }
+        return new SliceImpl<>(new ArrayList<>(content.subList(0, pageable.getPageSize())), pageable, true);
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//클라이언트 Sort -> order by 변환기
+//- 허용(whitelist)된 프로퍼티만, 인덱스가 있는 컬럼 하나만 정렬 기준으로 사용 (그 외는 filesort 유발)
+//- 항상 id 를 마지막 기준(tiebreaker)으로 붙여서 순서가 안정적 (키셋 페이징에도 사용 가능)
+//  InnoDB 보조 인덱스에는 PK 가 포함되어 있어서 (컬럼, id) 순서도 인덱스로 처리됨
+//- 비싼 정렬은 정책에 따라 거절(REJECT -> 400) 하거나 빼고 실행(REWRITE), member.sort.rejected 메트릭으로 집계
+public class SortPlanner {
+
+    public enum Policy {
+        REJECT, REWRITE
+    }
+
+    private final ComparableExpressionBase<?> tiebreaker;
+    private final Map<String, ComparableExpressionBase<?>> indexed;
+    private final Set<String> unindexed;
+    private final Policy policy;
+    private final MeterRegistry meterRegistry;
+
+    public SortPlanner(ComparableExpressionBase<?> tiebreaker,
+                       Map<String, ComparableExpressionBase<?>> indexed,
+                       Set<String> unindexed,
+                       Policy policy,
+                       MeterRegistry meterRegistry) {
+        this.tiebreaker = tiebreaker;
+        this.indexed = Map.copyOf(indexed);
+        this.unindexed = Set.copyOf(unindexed);
+        this.policy = policy;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public OrderSpecifier<?>[] plan(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        ComparableExpressionBase<?> leading = null;
+        Sort.Direction direction = Sort.Direction.ASC;
+
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = indexed.get(order.getProperty());
+            String reason = path == null
+                    ? (unindexed.contains(order.getProperty()) ? "unindexed" : "unknown")
+                    : (leading != null ? "secondary" : null);
+            if (reason != null) {
+                reject(order.getProperty(), reason);
+                continue;
+            }
+            leading = path;
+            direction = order.getDirection();
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+        }
+
+        //정렬 방향을 맞춰야 인덱스를 역방향으로 그대로 읽을 수 있음
+        if (!tiebreaker.equals(leading)) {
+            orders.add(direction.isAscending() ? tiebreaker.asc() : tiebreaker.desc());
+        }
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    private void reject(String property, String reason) {
+        Counter.builder("member.sort.rejected")
+                .description("Client sort orders rejected or rewritten by the sort planner")
+                //임의의 프로퍼티 이름으로 태그가 무한히 늘어나지 않도록
+                .tag("property", "unknown".equals(reason) ? "other" : property)
+                .tag("reason", reason)
+                .tag("policy", policy.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+        if (policy == Policy.REJECT) {
+            throw new InvalidSortException("Sorting by '" + property + "' is not supported (" + reason + ")");
+        }
+    }
+}
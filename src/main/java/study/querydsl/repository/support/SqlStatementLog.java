@@ -0,0 +1,247 @@
+package study.querydsl.repository.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+//운영에서도 켜둘 수 있는 SQL 로그 (show_sql / p6spy 로그 / bind trace 대신, sqlstats 프로파일)
+//- 문장 모양(리터럴, IN 목록을 ? 로 바꾼 SQL)별로 실행 수, 총 시간, 최대 시간, 행 수, 실패 수만 집계
+//- 개별 문장 로그는 sample-rate 비율로만 + 느린 문장/실패는 항상, 바인드 값은 남기지 않음
+//- 로그 쓰기는 링 버퍼에 넣기만 하고 전용 스레드가 기록 (밀리면 버리고 member.sql-log.dropped 로 집계)
+//- summary-interval-ms 마다 그 구간의 총 시간 상위 N 개 모양을 요약 로그로 남기고 구간 초기화
+@Component
+@ConditionalOnProperty(name = "member.sql-log.enabled", havingValue = "true")
+public class SqlStatementLog extends SimpleJdbcEventListener {
+
+    //로그 설정에서 따로 보낼 수 있도록 전용 로거
+    private static final Logger sqlLog = LoggerFactory.getLogger("member.sql");
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/|--[^\\n]*", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    //모양 수 상한 - 넘으면 나머지는 하나로 합침 (동적 SQL 로 맵이 무한히 커지지 않도록)
+    private static final int MAX_SHAPES = 2_000;
+    private static final String OTHER_SHAPE = "<other>";
+
+    private final double sampleRate;
+    private final long slowNanos;
+    private final int topN;
+    private final long summaryIntervalMillis;
+    private final RingBuffer<Entry> ringBuffer;
+    private final Cache<String, String> shapes = Caffeine.newBuilder().maximumSize(4_096).build();
+    private final AtomicReference<Map<String, ShapeStats>> window = new AtomicReference<>(new ConcurrentHashMap<>());
+    private final Counter sampled;
+    private final Counter dropped;
+
+    private Thread writer;
+    private ScheduledExecutorService summary;
+
+    public SqlStatementLog(MeterRegistry meterRegistry,
+                           @Value("${member.sql-log.sample-rate:0.01}") double sampleRate,
+                           @Value("${member.sql-log.slow-ms:200}") long slowMillis,
+                           @Value("${member.sql-log.top-n:10}") int topN,
+                           @Value("${member.sql-log.summary-interval-ms:60000}") long summaryIntervalMillis,
+                           @Value("${member.sql-log.buffer-size:4096}") int bufferSize) {
+        this.sampleRate = sampleRate;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+        this.topN = topN;
+        this.summaryIntervalMillis = summaryIntervalMillis;
+        this.ringBuffer = new RingBuffer<>(bufferSize);
+        this.sampled = Counter.builder("member.sql-log.sampled")
+                .description("SQL statements written to the sampled statement log")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("member.sql-log.dropped")
+                .description("Sampled SQL log lines dropped because the writer fell behind")
+                .register(meterRegistry);
+    }
+
+    //개별 문장 로그 한 줄
+    private record Entry(String sql, long elapsedNanos, boolean failed, String thread) {
+    }
+
+    //모양 하나의 구간 집계 결과
+    public record ShapeSummary(String shape, long count, double totalMillis, double maxMillis, long rows, long errors) {
+    }
+
+    private static final class ShapeStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private ShapeSummary summary(String shape) {
+            return new ShapeSummary(shape, count.sum(), totalNanos.sum() / 1_000_000.0, maxNanos.get() / 1_000_000.0,
+                    rows.sum(), errors.sum());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = new Thread(this::writeLoop, "member-sql-log");
+        writer.setDaemon(true);
+        writer.start();
+        summary = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("member-sql-summary-"));
+        summary.scheduleAtFixedRate(this::logSummary, summaryIntervalMillis, summaryIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (summary != null) {
+            summary.shutdownNow();
+        }
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        recordExecute(statementInformation.getSql(), timeElapsedNanos, e != null);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos,
+                                     int rowCount, SQLException e) {
+        super.onAfterExecuteUpdate(statementInformation, timeElapsedNanos, rowCount, e);
+        recordRows(statementInformation.getSql(), rowCount);
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos,
+                                    int[] updateCounts, SQLException e) {
+        super.onAfterExecuteBatch(statementInformation, timeElapsedNanos, updateCounts, e);
+        if (updateCounts != null) {
+            //SUCCESS_NO_INFO(-2) 같은 음수는 건수를 모르는 것
+            recordRows(statementInformation.getSql(), Arrays.stream(updateCounts).filter(n -> n > 0).sum());
+        }
+    }
+
+    //행마다 집계하지 않고 ResultSet 을 닫을 때 읽은 행 수를 한 번에
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        recordRows(resultSetInformation.getSql(), resultSetInformation.getCurrRow() + 1L);
+    }
+
+    void recordExecute(String sql, long elapsedNanos, boolean failed) {
+        if (sql == null) {
+            return;
+        }
+        ShapeStats stats = stats(sql);
+        stats.count.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        if (failed) {
+            stats.errors.increment();
+        }
+        if (failed || elapsedNanos >= slowNanos || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            ringBuffer.publish(new Entry(sql, elapsedNanos, failed, Thread.currentThread().getName()));
+            sampled.increment();
+            LockSupport.unpark(writer);
+        }
+    }
+
+    void recordRows(String sql, long rows) {
+        if (sql != null && rows > 0) {
+            stats(sql).rows.add(rows);
+        }
+    }
+
+    //현재 구간의 총 시간 상위 n 개
+    public List<ShapeSummary> top(int n) {
+        return top(window.get(), n);
+    }
+
+    //주석 제거, 리터럴/IN 목록을 ? 로, 공백 정리 - 값만 다른 문장은 같은 모양
+    static String shapeOf(String sql) {
+        String shape = COMMENT.matcher(sql).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    private ShapeStats stats(String sql) {
+        String shape = shapes.get(sql, SqlStatementLog::shapeOf);
+        Map<String, ShapeStats> current = window.get();
+        ShapeStats stats = current.get(shape);
+        if (stats != null) {
+            return stats;
+        }
+        return current.computeIfAbsent(current.size() < MAX_SHAPES ? shape : OTHER_SHAPE, key -> new ShapeStats());
+    }
+
+    private static List<ShapeSummary> top(Map<String, ShapeStats> stats, int n) {
+        return stats.entrySet().stream()
+                .map(entry -> entry.getValue().summary(entry.getKey()))
+                .sorted(Comparator.comparingDouble(ShapeSummary::totalMillis).reversed())
+                .limit(n)
+                .toList();
+    }
+
+    private void logSummary() {
+        Map<String, ShapeStats> ended = window.getAndSet(new ConcurrentHashMap<>());
+        if (ended.isEmpty()) {
+            return;
+        }
+        List<ShapeSummary> top = top(ended, topN);
+        sqlLog.info("sql summary: {} shapes in last {} ms, top {} by total time", ended.size(),
+                summaryIntervalMillis, top.size());
+        for (ShapeSummary shape : top) {
+            sqlLog.info("  count={} total={}ms max={}ms rows={} errors={} | {}", shape.count(),
+                    String.format("%.1f", shape.totalMillis()), String.format("%.1f", shape.maxMillis()),
+                    shape.rows(), shape.errors(), shape.shape());
+        }
+    }
+
+    private void writeLoop() {
+        RingBuffer<Entry>.Cursor cursor = ringBuffer.cursor();
+        while (!Thread.currentThread().isInterrupted()) {
+            Entry entry = cursor.poll(lost -> dropped.increment(lost));
+            if (entry == null) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(entry.elapsedNanos());
+            if (entry.failed()) {
+                sqlLog.warn("{}.{}ms FAILED [{}] {}", micros / 1000, String.format("%03d", micros % 1000),
+                        entry.thread(), entry.sql());
+            } else {
+                sqlLog.info("{}.{}ms [{}] {}", micros / 1000, String.format("%03d", micros % 1000),
+                        entry.thread(), entry.sql());
+            }
+        }
+    }
+}
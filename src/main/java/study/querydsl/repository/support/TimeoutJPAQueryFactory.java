@@ -0,0 +1,21 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+
+//select/selectFrom/from 으로 만드는 모든 JPAQuery 에 현재 요청의 QueryScope(남은 시간 timeout, 취소) 적용
+public class TimeoutJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+
+    public TimeoutJPAQueryFactory(EntityManager entityManager) {
+        super(entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return QueryScope.apply(super.query(), entityManager);
+    }
+}
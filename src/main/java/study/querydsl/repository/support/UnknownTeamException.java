@@ -0,0 +1,13 @@
+package study.querydsl.repository.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+//팀 변경 요청의 팀이 없음 - 버퍼에 넣기 전에 클라이언트 요청 오류(400)로 응답
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnknownTeamException extends IllegalArgumentException {
+
+    public UnknownTeamException(Long teamId) {
+        super("Team not found: " + teamId);
+    }
+}
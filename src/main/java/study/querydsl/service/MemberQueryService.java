@@ -0,0 +1,90 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberField;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.support.InvalidSearchBatchException;
+import study.querydsl.repository.support.QueryBudget;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//MemberController 조회용 - OSIV 를 껐으므로 응답 DTO 는 여기서 짧은 읽기 전용 트랜잭션 안에서 모두 채워서 반환
+//트랜잭션이 끝나면 커넥션 반납 -> JSON 직렬화 동안에는 커넥션을 잡고 있지 않음 (같은 풀 크기로 더 많은 요청 동시 처리)
+//반환 값은 DTO/Map 만 (엔티티를 넘기면 LazyLoadGuard 때문에 직렬화 중 지연 로딩이 실패)
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberQueryService {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepositoryCustom memberRepository;
+
+    @Value("${member.search.batch.max-conditions:100}")
+    private int maxBatchConditions;
+
+    //묶음 검색에서 조건 하나가 돌려주는 최대 건수 - {} 같은 빈 조건이 조건마다 테이블 전체를 읽지 않도록
+    @Value("${member.search.batch.max-rows-per-condition:100}")
+    private int maxRowsPerCondition;
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return memberJpaRepository.search(condition);
+    }
+
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchPageSimple(condition, pageable);
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchPageComplex(condition, pageable);
+    }
+
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields) {
+        return memberRepository.searchFields(condition, fields);
+    }
+
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+                                                      Pageable pageable) {
+        return memberRepository.searchPageFields(condition, fields, pageable);
+    }
+
+    //실행 계획의 exact count 는 트랜잭션 밖이어야 목록과 병렬로 조회하므로 트랜잭션을 시작하지 않음
+    //(쿼리마다 커넥션을 잠깐 쓰고 반납, 결과는 DTO)
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchPage(condition, pageable);
+    }
+
+    public Page<MemberTeamDto> searchPageApproximate(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchPageApproximate(condition, pageable);
+    }
+
+    //위젯 여러 개의 조건을 한 트랜잭션(커넥션 하나)에서 - 조건 수 상한을 넘으면 400
+    //요청 예산(QueryBudget)의 행 수/DB 시간은 조건 수만큼 늘림 - 조건마다 검색 한 번인 셈
+    public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions) {
+        if (conditions.isEmpty() || conditions.size() > maxBatchConditions) {
+            throw new InvalidSearchBatchException("search batch must have 1.." + maxBatchConditions
+                    + " conditions: " + conditions.size());
+        }
+        QueryBudget budget = QueryBudget.current();
+        if (budget != null) {
+            budget.scaleFor(conditions.size());
+        }
+        return memberRepository.searchAll(conditions, maxRowsPerCondition);
+    }
+
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+}
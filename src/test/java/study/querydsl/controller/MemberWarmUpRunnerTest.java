@@ -0,0 +1,69 @@
+package study.querydsl.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.cache.MemberSearchCache;
+import study.querydsl.repository.plan.MemberStatistics;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberWarmUpRunnerTest {
+
+    @Autowired
+    MemberRepositoryCustom memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberSearchCache searchCache;
+
+    @Autowired
+    MemberStatistics statistics;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void runReportsEveryShapeWithoutCache() {
+        MemberWarmUpRunner runner = new MemberWarmUpRunner(memberRepository, memberJpaRepository, transactionManager,
+                searchCache, statistics, 200);
+        double puts = cacheCount("cache.puts");
+        double hits = meterRegistry.get("cache.gets").tag("cache", "memberSearch").tag("result", "hit")
+                .functionCounter().count();
+
+        runner.run(new DefaultApplicationArguments());
+
+        //조건 조합 7개 x (v1, v2, v2 sort, v3, search)
+        List<MemberWarmUpRunner.ShapeReport> report = runner.report();
+        assertThat(report).hasSize(35);
+        assertThat(report).extracting(MemberWarmUpRunner.ShapeReport::shape)
+                .contains("v1 (no condition)", "search teamName", "v2 sort username+teamName+ageGoe+ageLoe");
+        assertThat(report).allSatisfy(shape -> {
+            assertThat(shape.calls()).isPositive();
+            assertThat(shape.firstMillis()).isPositive();
+            assertThat(shape.steadyMillis()).isPositive();
+        });
+        //검색 결과 캐시를 읽지도 채우지도 않음 -> 실제 조회 시간
+        assertThat(cacheCount("cache.puts")).isEqualTo(puts);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "memberSearch").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(hits);
+        assertThat(statistics.current()).isNotNull();
+    }
+
+    private double cacheCount(String name) {
+        return meterRegistry.get(name).tag("cache", "memberSearch").functionCounter().count();
+    }
+}
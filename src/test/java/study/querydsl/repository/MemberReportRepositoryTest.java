@@ -0,0 +1,48 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberReportRepositoryTest {
+
+    @Test
+    public void splitSingleId() {
+        List<long[]> ranges = MemberReportRepository.splitRanges(5, 5, 4);
+
+        assertThat(ranges).containsExactly(new long[]{5, 6});
+    }
+
+    @Test
+    public void splitSpanSmallerThanPartitions() {
+        //id 가 3개면 범위도 3개 (빈 범위 없음)
+        List<long[]> ranges = MemberReportRepository.splitRanges(1, 3, 8);
+
+        assertThat(ranges).containsExactly(new long[]{1, 2}, new long[]{2, 3}, new long[]{3, 4});
+    }
+
+    @Test
+    public void splitLastRangeEndsAfterMaxId() {
+        List<long[]> ranges = MemberReportRepository.splitRanges(1, 10, 3);
+
+        assertThat(ranges).containsExactly(new long[]{1, 5}, new long[]{5, 9}, new long[]{9, 11});
+        //빈틈/겹침 없이 이어짐
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i)[0]).isEqualTo(ranges.get(i - 1)[1]);
+        }
+    }
+
+    @Test
+    public void partitionsCappedByRangeSize() {
+        assertThat(MemberReportRepository.partitionsFor(1, 100_000, 16, 10_000)).isEqualTo(16);
+        assertThat(MemberReportRepository.partitionsFor(1, 1_000_000, 16, 10_000)).isEqualTo(100);
+        assertThat(MemberReportRepository.partitionsFor(1, 1_000_001, 16, 10_000)).isEqualTo(101);
+
+        List<long[]> ranges = MemberReportRepository.splitRanges(1, 1_000_001,
+                MemberReportRepository.partitionsFor(1, 1_000_001, 16, 10_000));
+        assertThat(ranges).allSatisfy(range -> assertThat(range[1] - range[0]).isLessThanOrEqualTo(10_000));
+        assertThat(ranges.get(ranges.size() - 1)[1]).isEqualTo(1_000_002);
+    }
+}
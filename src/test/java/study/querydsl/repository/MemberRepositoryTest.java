@@ -1,21 +1,69 @@
 package study.querydsl.repository;
 
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberUpsert;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.cache.MemberSearchCache;
+import study.querydsl.repository.cache.MemberSearchKey;
+import study.querydsl.repository.event.MemberChangeEvent;
+import study.querydsl.repository.plan.MemberSearchPlan;
+import study.querydsl.repository.plan.MemberSearchPlanner;
+import study.querydsl.repository.plan.MemberStatistics;
+import study.querydsl.repository.readmodel.MemberSearchProjector;
+import study.querydsl.repository.readmodel.MemberSearchReadRepository;
+import study.querydsl.repository.support.EstimatedPageImpl;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+import study.querydsl.repository.support.QueryBudget;
+import study.querydsl.repository.support.QueryBudgetExceededException;
+import study.querydsl.repository.support.QueryCancelledException;
+import study.querydsl.repository.support.QueryScope;
+import study.querydsl.repository.support.QueryScopeRegistry;
+import study.querydsl.repository.support.ScalableCountingBloomFilter;
+import study.querydsl.repository.support.SortPlanner;
+import study.querydsl.repository.support.TimeoutJPAQueryFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberSearch.memberSearch;
+import static study.querydsl.entity.QTeam.team;
 
 @SpringBootTest
 @Transactional
@@ -26,6 +74,33 @@ public class MemberRepositoryTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    QueryScopeRegistry queryScopes;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberCountEstimator countEstimator;
+
+    @Autowired
+    MemberUsernameIndex usernameIndex;
+
+    @Autowired
+    MemberStatistics statistics;
+
+    @Autowired
+    MemberSearchPlanner searchPlanner;
+
+    @Autowired
+    MemberSearchCache searchCache;
+
     @Test
     public void basicTest(){
         Member member = new Member("member1",10);
@@ -90,6 +165,659 @@ public class MemberRepositoryTest {
 
         assertThat(result.getSize()).isEqualTo(3);
         assertThat(result.getContent()).extracting("username").containsExactly("memberA","memberB","memberC");
+
+        //Pageable.unpaged() - offset/limit 없이 전체
+        Page<MemberTeamDto> all = memberRepository.searchPageSimple(condition, Pageable.unpaged());
+        assertThat(all.getContent()).extracting("username").containsExactly("memberA","memberB","memberC","memberD");
+        assertThat(all.getTotalElements()).isEqualTo(4);
+    }
+    @Test
+    public void searchSlice(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member memberA = new Member("memberA", 10, teamA);
+        Member memberB = new Member("memberB", 20, teamA);
+
+        Member memberC = new Member("memberC", 30, teamB);
+        Member memberD = new Member("memberD", 40, teamB);
+        em.persist(memberA);
+        em.persist(memberB);
+        em.persist(memberC);
+        em.persist(memberD);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //한 건 더 조회해서 다음 페이지 여부 판단 (count 쿼리 X)
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        assertThat(first.getContent()).extracting("username").containsExactly("memberA","memberB","memberC");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 3));
+        assertThat(last.getContent()).extracting("username").containsExactly("memberD");
+        assertThat(last.hasNext()).isFalse();
+    }
+    @Test
+    public void searchPageApproximate(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member memberA = new Member("memberA", 10, teamA);
+        Member memberB = new Member("memberB", 20, teamA);
+
+        Member memberC = new Member("memberC", 30, teamB);
+        Member memberD = new Member("memberD", 40, teamB);
+        em.persist(memberA);
+        em.persist(memberB);
+        em.persist(memberC);
+        em.persist(memberD);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //임계값 미만의 작은 테이블은 정확한 count로 fallback
+        Page<MemberTeamDto> result = memberRepository.searchPageApproximate(condition, PageRequest.of(0, 3));
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(((EstimatedPageImpl<MemberTeamDto>) result).isExactTotal()).isTrue();
+    }
+    @Test
+    public void windowFunction(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member memberA = new Member("memberA", 10, teamA);
+        Member memberB = new Member("memberB", 20, teamA);
+
+        Member memberC = new Member("memberC", 30, teamB);
+        Member memberD = new Member("memberD", 40, teamB);
+        em.persist(memberA);
+        em.persist(memberB);
+        em.persist(memberC);
+        em.persist(memberD);
+        em.flush(); //네이티브 쿼리라 먼저 DB에 반영
+
+        //팀별 나이 1등
+        List<MemberTeamDto> top = memberRepository.findTopByAgePerTeam(1);
+        assertThat(top).extracting("username").containsExactly("memberB", "memberD");
+
+        //평균(25) 이상
+        List<MemberTeamDto> aboveAverage = memberRepository.findAboveAverageAge();
+        assertThat(aboveAverage).extracting("username").containsExactly("memberC", "memberD");
+    }
+
+    //윈도우 함수 vs JPAExpressions 서브쿼리 - 같은 결과인지 확인하고 평균 실행 시간 출력
+    @Test
+    public void windowFunctionBenchmark(){
+        for (int t = 0; t < 10; t++) {
+            Team benchTeam = new Team("team" + t);
+            em.persist(benchTeam);
+            for (int i = 0; i < 200; i++) {
+                em.persist(new Member("member" + t + "_" + i, (i * 7 + t) % 100, benchTeam));
+            }
+        }
+        em.flush();
+        em.clear();
+
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        QMember memberSub = new QMember("memberSub");
+        int runs = 5;
+
+        long windowNanos = 0;
+        long subQueryNanos = 0;
+        List<MemberTeamDto> window = null;
+        List<Member> subQuery = null;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            window = memberRepository.findAboveAverageAge();
+            windowNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            subQuery = queryFactory
+                    .selectFrom(member)
+                    .where(member.age.goe(
+                            JPAExpressions
+                                    .select(memberSub.age.avg())
+                                    .from(memberSub)
+                    ))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            subQueryNanos += System.nanoTime() - start;
+            em.clear();
+        }
+        assertThat(window).extracting("memberId")
+                .containsExactlyElementsOf(subQuery.stream().map(Member::getId).toList());
+        System.out.println("aboveAverage window = " + windowNanos / runs / 1000 + "us, subQuery = " + subQueryNanos / runs / 1000 + "us");
+
+        //팀별 상위 3명 - 상관 서브쿼리 (나보다 나이가 많은 팀원 수 < 3)
+        windowNanos = 0;
+        subQueryNanos = 0;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            window = memberRepository.findTopByAgePerTeam(3);
+            windowNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            subQuery = queryFactory
+                    .selectFrom(member)
+                    .join(member.team, team)
+                    .where(JPAExpressions
+                            .select(memberSub.count())
+                            .from(memberSub)
+                            .where(memberSub.team.eq(member.team),
+                                    memberSub.age.gt(member.age)
+                                            .or(memberSub.age.eq(member.age).and(memberSub.id.lt(member.id))))
+                            .lt(3L))
+                    .orderBy(team.id.asc(), member.age.desc(), member.id.asc())
+                    .fetch();
+            subQueryNanos += System.nanoTime() - start;
+            em.clear();
+        }
+        assertThat(window).extracting("memberId")
+                .containsExactlyElementsOf(subQuery.stream().map(Member::getId).toList());
+        System.out.println("topByAgePerTeam window = " + windowNanos / runs / 1000 + "us, subQuery = " + subQueryNanos / runs / 1000 + "us");
+    }
+    @Test
+    public void findAllByIdsOrdered(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        Member memberA = new Member("memberA", 10, teamA);
+        Member memberB = new Member("memberB", 20, teamA);
+        Member memberC = new Member("memberC", 30);
+        em.persist(memberA);
+        em.persist(memberB);
+        em.persist(memberC);
+
+        //입력 순서 유지, 없는 id 와 중복 id 는 한 번만
+        List<MemberTeamDto> result = memberRepository.findAllByIdsOrdered(
+                List.of(memberC.getId(), -1L, memberA.getId(), memberB.getId(), memberC.getId()));
+
+        assertThat(result).extracting("username").containsExactly("memberC", "memberA", "memberB");
+        assertThat(result).extracting("teamName").containsExactly(null, "teamA", "teamA");
+    }
+    @Test
+    public void findByUsernamesChunked(){
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            em.persist(new Member("bulk" + i, i % 50));
+            usernames.add("bulk" + i);
+        }
+        Collections.reverse(usernames);
+
+        //512 개씩 3 묶음 (마지막 묶음은 256 개로 패딩)
+        List<MemberTeamDto> result = memberRepository.findByUsernames(usernames);
+
+        assertThat(result).extracting("username").containsExactlyElementsOf(usernames);
+    }
+    @Test
+    public void findByUsernamesMatchesColumnCollation(){
+        String suffix = String.valueOf(System.nanoTime());
+        em.persist(new Member("Bob-" + suffix, 10));
+        em.persist(new Member("alice-" + suffix, 20));
+        em.flush();
+
+        //IN 절은 대소문자/악센트를 무시하고 찾음 - 찾은 행은 입력한 키 자리에 (대소문자만 다른 입력은 한 번)
+        List<MemberTeamDto> result = memberRepository.findByUsernames(
+                List.of("ALICE-" + suffix, "bob-" + suffix, "BOB-" + suffix, "none-" + suffix));
+
+        assertThat(result).extracting("username").containsExactly("alice-" + suffix, "Bob-" + suffix);
+    }
+    @Test
+    public void searchFields(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member memberA = new Member("memberA", 10, teamA);
+        em.persist(memberA);
+        em.persist(new Member("memberB", 20));
+
+        //팀 필드/조건이 없으면 team 조인 없이 요청한 필드만
+        List<Map<String, Object>> result = memberRepository.searchFields(new MemberSearchCondition(),
+                MemberField.parse("username,memberId"));
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0)).containsOnlyKeys("memberId", "username");
+        assertThat(result).extracting(row -> row.get("username")).containsExactlyInAnyOrder("memberA", "memberB");
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        Page<Map<String, Object>> page = memberRepository.searchPageFields(condition,
+                MemberField.parse("memberId,teamId"), PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent().get(0))
+                .containsEntry("memberId", memberA.getId())
+                .containsEntry("teamId", teamA.getId())
+                .doesNotContainKey("teamName");
+    }
+    @Test
+    public void queryScopeDeadlineAndCancel() throws InterruptedException {
+        //마감이 지난 요청은 쿼리를 보내지 않음
+        try (QueryScope scope = queryScopes.open("deadline", 1).attach()) {
+            Thread.sleep(10);
+            assertThatThrownBy(() -> memberRepository.search(new MemberSearchCondition()))
+                    .isInstanceOf(QueryTimeoutException.class);
+        }
+        //취소된 요청의 이후 쿼리도 실행하지 않음
+        try (QueryScope scope = queryScopes.open("cancel", 60_000).attach()) {
+            assertThat(queryScopes.cancel("cancel")).isTrue();
+            assertThatThrownBy(() -> memberRepository.searchSlice(new MemberSearchCondition(), PageRequest.of(0, 10)))
+                    .isInstanceOf(QueryCancelledException.class);
+        }
+        assertThat(QueryScope.current()).isNull();
+        assertThat(queryScopes.cancel("cancel")).isFalse();
+    }
+    @Test
+    public void queryScopeCancelSkipsFinishedSessions() {
+        TransactionTemplate perRange = new TransactionTemplate(transactionManager);
+        perRange.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try (QueryScope scope = queryScopes.open("finished", 60_000).attach()) {
+            //리포트처럼 범위마다 트랜잭션 - 끝나면 등록 해제
+            perRange.executeWithoutResult(status -> memberRepository.search(new MemberSearchCondition()));
+            //직접 열었다가 닫은 EntityManager 의 세션 - cancelQuery 가 IllegalStateException 을 던지는 세션
+            EntityManager closed = em.getEntityManagerFactory().createEntityManager();
+            new TimeoutJPAQueryFactory(closed).selectFrom(member).fetch();
+            closed.close();
+            //아직 열려 있는 세션
+            EntityManager open = em.getEntityManagerFactory().createEntityManager();
+            try {
+                new TimeoutJPAQueryFactory(open).selectFrom(member).fetch();
+
+                assertThat(scope.cancel()).isTrue();
+                assertThat(scope.isCancelled()).isTrue();
+            } finally {
+                open.close();
+            }
+            //남은 세션이 모두 닫혔으면 예외 없이 false
+            assertThat(scope.cancel()).isFalse();
+        }
+    }
+    @Test
+    public void existsAndFindFirst(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 10 + i, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(12);
+
+        //select 1 ... limit 1 - 문장 1개, 최대 1행
+        try (QueryBudget budget = QueryBudget.open()) {
+            assertThat(memberTestRepository.existsByCondition(condition)).isTrue();
+            assertThat(budget.statements()).isEqualTo(1);
+            assertThat(budget.rows()).isLessThanOrEqualTo(1);
+        }
+        assertThat(memberTestRepository.findFirstByCondition(condition))
+                .hasValueSatisfying(found -> assertThat(found.getUsername()).isEqualTo("member2"));
+
+        condition.setAgeGoe(100);
+        assertThat(memberTestRepository.existsByCondition(condition)).isFalse();
+        assertThat(memberTestRepository.findFirstByCondition(condition)).isEmpty();
+    }
+    @Test
+    public void searchAll(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamA");
+        MemberSearchCondition sameTeam = new MemberSearchCondition();
+        sameTeam.setTeamName("teamA");
+        sameTeam.setUsername("");
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(20);
+
+        //빈 문자열은 조건 없음이라 byTeam 과 같은 조건 - 서로 다른 조건 2개를 union all 한 문장으로
+        try (QueryBudget budget = QueryBudget.open()) {
+            List<List<MemberTeamDto>> result = memberRepository.searchAll(List.of(byTeam, byAge, sameTeam), 100);
+
+            assertThat(result).hasSize(3);
+            assertThat(result.get(0)).extracting("username").containsExactly("member1", "member2");
+            assertThat(result.get(1)).extracting("username").containsExactly("member2", "member3");
+            assertThat(result.get(2)).isSameAs(result.get(0));
+            assertThat(budget.statements()).isEqualTo(1);
+        }
+
+        //조건마다 회원 id 순 앞의 maxRows 건까지만 - 빈 조건도 테이블 전체를 읽지 않음
+        List<List<MemberTeamDto>> capped = memberRepository.searchAll(List.of(new MemberSearchCondition(), byAge), 1);
+        assertThat(capped.get(0)).hasSize(1);
+        assertThat(capped.get(1)).extracting("username").containsExactly("member2");
+
+        //묶음 검색은 조건 수만큼 행 수 한도를 늘림 (MemberQueryService.searchAll)
+        try (QueryBudget budget = QueryBudget.open(new QueryBudget.Limits(10, 2, 60_000), QueryBudget.Mode.LOG)) {
+            budget.scaleFor(2);
+            memberRepository.searchAll(List.of(byTeam, byAge), 100);
+            assertThat(budget.rows()).isEqualTo(4);
+            assertThat(budget.exceeded()).isEmpty();
+        }
+
+        MemberSearchBatch batch = MemberSearchBatch.of(List.of(byTeam, byAge, sameTeam));
+        assertThat(batch.distinct()).hasSize(2);
+        assertThat(batch.slots()).containsExactly(0, 1, 0);
+    }
+    @Test
+    public void queryBudget(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 10 + i, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        //applyPagination - 내용 1번 + count 1번 (예전에는 count 용으로 전체 조회를 두 번 더 실행)
+        try (QueryBudget budget = QueryBudget.open()) {
+            Page<Member> page = memberTestRepository.applyPagination(new MemberSearchCondition(), PageRequest.of(0, 2));
+
+            assertThat(page.getTotalElements()).isEqualTo(5);
+            assertThat(budget.statements()).isEqualTo(2);
+            assertThat(budget.rows()).isEqualTo(3);
+        }
+
+        //FAIL - 지연 로딩으로 한도를 넘으면 바로 실패
+        em.clear();
+        try (QueryBudget budget = QueryBudget.open(new QueryBudget.Limits(1, 100, 10_000), QueryBudget.Mode.FAIL)) {
+            List<Member> members = memberRepository.findAll();
+            assertThatThrownBy(() -> members.get(0).getTeam().getName())
+                    .isInstanceOf(QueryBudgetExceededException.class);
+        }
+    }
+    @Test
+    public void readModel(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("memberA", 10, teamA));
+        em.persist(new Member("memberB", 20, teamA));
+        em.persist(new Member("memberC", 30, teamB));
+        em.flush();
+
+        MemberSearchProjector projector = new MemberSearchProjector(em, queryFactory, transactionManager);
+        MemberSearchReadRepository readRepository = new MemberSearchReadRepository(em, queryFactory, memberRepository,
+                countEstimator, new SortPlanner(memberSearch.memberId, Map.of("age", memberSearch.age), Set.of(),
+                SortPlanner.Policy.REWRITE, new SimpleMeterRegistry()));
+        assertThat(projector.rebuild()).isGreaterThanOrEqualTo(3);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        Page<MemberTeamDto> page = readRepository.searchPage(condition,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "age")));
+        assertThat(page.getContent()).extracting("username").containsExactly("memberB", "memberA");
+
+        //팀 이름 변경은 그 팀 회원 행 전체에 한 번에 반영
+        teamA.setName("teamZ");
+        em.flush();
+        projector.onChange(new MemberChangeEvent(MemberChangeEvent.Type.UPDATE, MemberChangeEvent.Entity.TEAM,
+                teamA.getId(), teamA.getId(), teamA.getId(), Set.of("name"), Map.of("name", "teamZ"),
+                Map.of("name", "teamA"), null));
+        em.clear();
+
+        condition.setTeamName("teamZ");
+        assertThat(readRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("memberA", "memberB");
+    }
+    @Test
+    public void usernameIndex(){
+        String username = "bloom-" + System.nanoTime();
+        assertThat(usernameIndex.existsByUsername(username)).isFalse();
+
+        //flush 시점에 필터에 추가 -> 바로 존재로 확인
+        em.persist(new Member(username, 10));
+        em.flush();
+        assertThat(usernameIndex.existsByUsername(username)).isTrue();
+        //DB 의 username = ? 처럼 대소문자/악센트 무시
+        assertThat(usernameIndex.existsByUsername(username.toUpperCase())).isTrue();
+        assertThat(usernameIndex.existsByUsername("blöom-" + username.substring("bloom-".length()))).isTrue();
+
+        ScalableCountingBloomFilter filter = new ScalableCountingBloomFilter(100, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("user" + i);
+        }
+        assertThat(filter.layerCount()).isGreaterThan(1);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain("user" + i)).isTrue();
+        }
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> filter.mightContain("other" + i))
+                .count();
+        assertThat(falsePositives).isLessThan(300);
+
+        filter.remove("user1");
+        assertThat(filter.mightContain("user2")).isTrue();
+    }
+    @Test
+    public void searchPlanner(){
+        String teamName = "planner-" + System.nanoTime();
+        Team plannerTeam = new Team(teamName);
+        em.persist(plannerTeam);
+        em.persist(new Member("member1", 10, plannerTeam));
+        em.persist(new Member("member2", 20, plannerTeam));
+        em.persist(new Member("member3", 30, plannerTeam));
+        em.flush();
+        statistics.refresh();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+
+        //팀 하나 3명 -> team 출발, 한 번에 읽고 메모리에서 페이지/전체 개수
+        MemberSearchPlan plan = searchPlanner.explain(condition, PageRequest.of(0, 2));
+        assertThat(plan.paging()).isEqualTo(MemberSearchPlan.Paging.IN_MEMORY);
+        assertThat(plan.estimatedRows()).isEqualTo(3);
+        assertThat(plan.reasons()).isNotEmpty();
+
+        Page<MemberTeamDto> page = memberRepository.searchPage(condition, PageRequest.of(1, 2));
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting("username").containsExactly("member3");
+
+        //메모리 상한을 낮추면 깊은 offset + id 순서는 keyset, 다른 정렬은 offset
+        MemberSearchPlanner smallPlanner = new MemberSearchPlanner(statistics, new SimpleMeterRegistry(), 1, 2);
+        assertThat(smallPlanner.explain(condition, PageRequest.of(1, 2)).paging())
+                .isEqualTo(MemberSearchPlan.Paging.KEYSET);
+        assertThat(smallPlanner.explain(condition, PageRequest.of(1, 2, Sort.by("age"))).paging())
+                .isEqualTo(MemberSearchPlan.Paging.OFFSET);
+    }
+    @Test
+    public void upsertAll(){
+        String suffix = String.valueOf(System.nanoTime());
+        Team upsertTeam = new Team("upsert-" + suffix);
+        em.persist(upsertTeam);
+        em.persist(new Member("existing-" + suffix, 10));
+        em.flush();
+        em.clear();
+
+        //있는 이름은 나이/팀 변경, 없는 이름은 추가 (같은 이름은 마지막 값)
+        List<MemberUpsertRepository.UpsertResult> results = memberRepository.upsertAll(List.of(
+                new MemberUpsert("existing-" + suffix, 20, "upsert-" + suffix),
+                new MemberUpsert("new-" + suffix, 30, "upsert-" + suffix),
+                new MemberUpsert("new-" + suffix, 31, null)));
+        assertThat(results).containsExactly(new MemberUpsertRepository.UpsertResult(0, 1, 1));
+
+        List<Member> updated = memberRepository.findByUsername("existing-" + suffix);
+        assertThat(updated).extracting("age").containsExactly(20);
+        assertThat(updated.get(0).getTeam().getName()).isEqualTo("upsert-" + suffix);
+        List<Member> inserted = memberRepository.findByUsername("new-" + suffix);
+        assertThat(inserted).extracting("age").containsExactly(31);
+        assertThat(inserted.get(0).getTeam()).isNull();
+        assertThat(usernameIndex.existsByUsername("new-" + suffix)).isTrue();
+
+        assertThatThrownBy(() -> memberRepository.upsertAll(List.of(
+                new MemberUpsert("other-" + suffix, 40, "missing-" + suffix))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    @Test
+    public void upsertAllMatchesColumnCollation(){
+        String suffix = String.valueOf(System.nanoTime());
+        em.persist(new Team("upsertTeam-" + suffix));
+        em.persist(new Member("bob-" + suffix, 10));
+        em.flush();
+        em.clear();
+
+        //DB 비교는 대소문자 무시 - 'BOB' 은 'bob' 의 변경, 'TEAM' 은 'Team', 대소문자만 다른 입력은 한 건
+        List<MemberUpsertRepository.UpsertResult> results = memberRepository.upsertAll(List.of(
+                new MemberUpsert("BOB-" + suffix, 20, "UPSERTTEAM-" + suffix),
+                new MemberUpsert("new-" + suffix, 30, null),
+                new MemberUpsert("NEW-" + suffix, 31, "upsertteam-" + suffix)));
+        assertThat(results).containsExactly(new MemberUpsertRepository.UpsertResult(0, 1, 1));
+
+        List<Member> bob = memberRepository.findByUsername("bob-" + suffix);
+        assertThat(bob).extracting("username").containsExactly("bob-" + suffix);
+        assertThat(bob).extracting("age").containsExactly(20);
+        assertThat(bob.get(0).getTeam().getName()).isEqualTo("upsertTeam-" + suffix);
+        assertThat(memberRepository.findByUsername("new-" + suffix)).extracting("age").containsExactly(31);
+    }
+    @Test
+    public void searchCacheInvalidation(){
+        String suffix = Long.toString(System.nanoTime());
+        Team cacheTeam = new Team("cache-" + suffix);
+        em.persist(cacheTeam);
+        Member cached = new Member("cached-" + suffix, 10, cacheTeam);
+        em.persist(cached);
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cache-" + suffix);
+        MemberSearchKey key = MemberSearchKey.of("cacheTest", condition);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<MemberTeamDto>> loader = () -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(List.of(new MemberTeamDto(cached.getId(), cached.getUsername(), cached.getAge(),
+                    cacheTeam.getId(), cacheTeam.getName())));
+        };
+        //테스트 트랜잭션(읽기/쓰기)을 잠시 내려놓고 트랜잭션 밖에서 조회 - 캐시를 거침
+        TransactionTemplate outside = new TransactionTemplate(transactionManager);
+        outside.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        Supplier<List<MemberTeamDto>> search = () -> outside.execute(status -> searchCache.get(key, loader));
+
+        //히트 - 다시 조회하지 않고, 꺼낼 때마다 수정 불가 목록 + DTO 복사본
+        List<MemberTeamDto> first = search.get();
+        List<MemberTeamDto> second = search.get();
+        assertThat(loads).hasValue(1);
+        assertThat(second).isNotSameAs(first).isEqualTo(first);
+        assertThat(second.get(0)).isNotSameAs(first.get(0));
+        assertThatThrownBy(() -> second.add(new MemberTeamDto(0L, "x", 0, null, null)))
+                .isInstanceOf(UnsupportedOperationException.class);
+        second.get(0).setAge(99);
+        first.get(0).setAge(98); //처음 조회한 호출자가 받은 값도 캐시와 분리
+        assertThat(search.get().get(0).getAge()).isEqualTo(10);
+        assertThat(loads).hasValue(1);
+
+        //엔티티 변경(더티 체킹) -> 그 팀 범위 stale
+        cached.setAge(11);
+        em.flush();
+        search.get();
+        assertThat(loads).hasValue(2);
+
+        //팀 이름 변경 -> 이전 이름 조건 결과도 stale
+        cacheTeam.setName("renamed-" + suffix);
+        em.flush();
+        search.get();
+        assertThat(loads).hasValue(3);
+
+        //QueryDSL 벌크 update -> 전체 무효화
+        queryFactory.update(member)
+                .set(member.age, 20)
+                .where(member.username.eq("cached-" + suffix))
+                .execute();
+        search.get();
+        search.get();
+        assertThat(loads).hasValue(4);
+
+        //읽기/쓰기 트랜잭션 안에서는 매번 조회 (커밋 전 자기 변경을 봐야 함)
+        searchCache.get(key, loader);
+        searchCache.get(key, loader);
+        assertThat(loads).hasValue(6);
+    }
+    @Test
+    public void reportScan(){
+        //범위 조회는 다른 스레드의 읽기 전용 트랜잭션이라 테스트 데이터를 먼저 커밋
+        TransactionTemplate committed = new TransactionTemplate(transactionManager);
+        committed.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        String teamName = "report-" + System.nanoTime();
+        Long teamId = committed.execute(status -> {
+            Team reportTeam = new Team(teamName);
+            em.persist(reportTeam);
+            for (int i = 0; i < 30; i++) {
+                em.persist(new Member("report" + i, i, reportTeam));
+            }
+            return reportTeam.getId();
+        });
+        RecordingExecutor recording = new RecordingExecutor(2);
+        ParallelQueryExecutor queryExecutor = new ParallelQueryExecutor(1) {
+            @Override
+            public ExecutorService executor() {
+                return recording;
+            }
+        };
+        MemberReportRepository reportRepository = new MemberReportRepository(memberRepository, transactionManager,
+                queryExecutor, 2, 10_000);
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName(teamName);
+
+            //ordered - id 순서대로
+            List<Long> ordered = new ArrayList<>();
+            long orderedRows = reportRepository.scan(condition, 8, true,
+                    chunk -> chunk.forEach(dto -> ordered.add(dto.getMemberId())));
+            assertThat(orderedRows).isEqualTo(30);
+            assertThat(ordered).hasSize(30).isSorted();
+
+            //unordered - 먼저 끝난 범위부터, 건수/내용은 같음
+            List<Long> unordered = Collections.synchronizedList(new ArrayList<>());
+            long unorderedRows = reportRepository.scan(condition, 8, false,
+                    chunk -> chunk.forEach(dto -> unordered.add(dto.getMemberId())));
+            assertThat(unorderedRows).isEqualTo(30);
+            assertThat(unordered).containsExactlyInAnyOrderElementsOf(ordered);
+
+            //consumer 가 실패하면 다음 범위를 조회하지 않고 조회 중인 범위는 취소
+            for (boolean inOrder : List.of(true, false)) {
+                recording.submitted.clear();
+                assertThatThrownBy(() -> reportRepository.scan(condition, 8, inOrder, chunk -> {
+                    throw new IllegalStateException("consumer failed");
+                })).hasMessage("consumer failed");
+                assertThat(recording.submitted).hasSize(2);
+                assertThat(recording.submitted).allMatch(Future::isDone);
+            }
+        } finally {
+            recording.shutdownNow();
+            queryExecutor.shutdown();
+            committed.executeWithoutResult(status -> {
+                queryFactory.delete(member).where(member.team.id.eq(teamId)).execute();
+                queryFactory.delete(team).where(team.id.eq(teamId)).execute();
+            });
+        }
+    }
+
+    //제출된 작업(Future)을 기록하는 executor
+    static class RecordingExecutor extends ThreadPoolExecutor {
+        final List<Future<?>> submitted = new CopyOnWriteArrayList<>();
+
+        RecordingExecutor(int threads) {
+            super(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+            RunnableFuture<T> task = super.newTaskFor(callable);
+            submitted.add(task);
+            return task;
+        }
     }
     @Test
     public void querydslPredicateTest(){
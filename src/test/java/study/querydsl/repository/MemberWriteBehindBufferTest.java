@@ -0,0 +1,269 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.repository.cache.MemberJdbcWriter;
+import study.querydsl.repository.cache.MemberWriteVersions;
+import study.querydsl.repository.event.MemberChangeEventBus;
+import study.querydsl.repository.support.UnknownTeamException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//DB 대신 batchUpdate 를 기록하는 JdbcTemplate 으로 버퍼 동작만 검증
+class MemberWriteBehindBufferTest {
+
+    RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+    MemberChangeEventBus eventBus = new MemberChangeEventBus(new SimpleMeterRegistry(), 64);
+    List<MemberWriteBehindBuffer> buffers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (MemberWriteBehindBuffer buffer : buffers) {
+            buffer.shutdown();
+        }
+        eventBus.shutdown();
+    }
+
+    @Test
+    public void coalescing() throws Exception {
+        MemberWriteBehindBuffer buffer = buffer(false, 3);
+
+        //같은 회원의 변경은 마지막 값만, 나이/팀은 따로 합쳐짐
+        buffer.updateAge(100L, 10);
+        buffer.changeTeam(100L, 7L);
+        CompletableFuture<Void> last = buffer.updateAge(100L, 11);
+
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(writers.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        buffer.updateAge((long) (i % 10), i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+        assertThat(buffer.pending()).isEqualTo(11);
+
+        buffer.flush();
+
+        assertThat(jdbcTemplate.rows()).hasSize(11);
+        Object[] row = jdbcTemplate.rows().stream().filter(args -> args[3].equals(100L)).findFirst().orElseThrow();
+        assertThat(row[0]).isEqualTo(11);
+        assertThat(row[1]).isEqualTo(7L);
+        assertThat(row[2]).isNotNull(); //modified_at
+        assertThat(last).isCompleted();
+        assertThat(buffer.pending()).isZero();
+    }
+
+    @Test
+    public void durableJoinWaitsForFlusher() throws Exception {
+        MemberWriteBehindBuffer buffer = buffer(true, 3);
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<CompletableFuture<Void>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                long memberId = t;
+                futures.add(callers.submit(() -> buffer.updateAge(memberId, 20)));
+            }
+            for (Future<CompletableFuture<Void>> future : futures) {
+                //join 이 끝나고 돌아오므로 이미 반영됨
+                assertThat(future.get(10, TimeUnit.SECONDS)).isCompleted();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(jdbcTemplate.rows()).hasSize(4);
+        assertThat(jdbcTemplate.threads).allMatch(name -> name.startsWith("member-write-behind-"));
+    }
+
+    @Test
+    public void durableInTransactionWritesOnCallerThread() {
+        MemberWriteBehindBuffer buffer = buffer(true, 3);
+
+        //호출자 트랜잭션 안에서는 flusher 를 기다리지 않음 (행 잠금 교착 방지)
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThat(buffer.updateAge(1L, 30)).isCompleted();
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertThat(jdbcTemplate.threads).containsExactly(Thread.currentThread().getName());
+        assertThat(buffer.pending()).isZero();
+    }
+
+    @Test
+    public void shutdownFlushesAndWritesLateUpdatesSynchronously() throws InterruptedException {
+        MemberWriteBehindBuffer buffer = buffer(false, 3);
+        CompletableFuture<Void> before = buffer.updateAge(1L, 40);
+
+        buffer.shutdown();
+        assertThat(before).isCompleted();
+
+        CompletableFuture<Void> after = buffer.updateAge(2L, 41);
+        assertThat(after).isCompleted();
+        assertThat(jdbcTemplate.rows()).extracting(args -> args[3]).containsExactly(1L, 2L);
+        assertThat(jdbcTemplate.threads.get(1)).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void failedFlushIsRequeuedAndMerged() {
+        MemberWriteBehindBuffer buffer = buffer(false, 3);
+        jdbcTemplate.failures.set(1);
+
+        CompletableFuture<Void> age = buffer.updateAge(1L, 50);
+        buffer.flush();
+        assertThat(age).isNotDone();
+        assertThat(buffer.pending()).isEqualTo(1);
+
+        //다시 대기 중인 변경에 새 변경이 합쳐짐
+        CompletableFuture<Void> team = buffer.changeTeam(1L, 3L);
+        buffer.flush();
+
+        assertThat(age).isCompleted();
+        assertThat(team).isCompleted();
+        assertThat(jdbcTemplate.rows()).hasSize(1);
+        assertThat(jdbcTemplate.rows().get(0)[0]).isEqualTo(50);
+        assertThat(jdbcTemplate.rows().get(0)[1]).isEqualTo(3L);
+    }
+
+    @Test
+    public void failedFlushGivesUpAfterMaxAttempts() {
+        MemberWriteBehindBuffer buffer = buffer(false, 2);
+        jdbcTemplate.failures.set(Integer.MAX_VALUE);
+
+        CompletableFuture<Void> update = buffer.updateAge(1L, 60);
+        buffer.flush();
+        buffer.flush();
+
+        assertThat(update).isCompletedExceptionally();
+        assertThatThrownBy(update::join).isInstanceOf(CompletionException.class);
+        assertThat(buffer.pending()).isZero();
+    }
+
+    @Test
+    public void badUpdateDoesNotDropOthersInBatch() {
+        MemberWriteBehindBuffer buffer = buffer(false, 2);
+        //팀 확인 뒤에 팀이 삭제된 경우처럼 flush 때 FK 위반이 나는 한 건
+        jdbcTemplate.badMembers.add(5L);
+
+        List<CompletableFuture<Void>> good = new ArrayList<>();
+        for (long memberId = 0; memberId < 10; memberId++) {
+            if (memberId != 5L) {
+                good.add(buffer.changeTeam(memberId, 1L));
+            }
+        }
+        CompletableFuture<Void> bad = buffer.changeTeam(5L, 1L);
+
+        buffer.flush();
+        assertThat(good).allMatch(CompletableFuture::isDone).allMatch(future -> !future.isCompletedExceptionally());
+        assertThat(bad).isNotDone();
+        assertThat(buffer.pending()).isEqualTo(1);
+
+        buffer.flush();
+        assertThat(bad).isCompletedExceptionally();
+        assertThat(jdbcTemplate.rows()).extracting(args -> args[3])
+                .hasSize(9)
+                .doesNotContain(5L);
+        assertThat(buffer.pending()).isZero();
+    }
+
+    @Test
+    public void unknownTeamIsRejectedBeforeEnqueue() {
+        MemberWriteBehindBuffer buffer = buffer(false, 3);
+
+        assertThatThrownBy(() -> buffer.changeTeam(1L, RecordingJdbcTemplate.MISSING_TEAM))
+                .isInstanceOf(UnknownTeamException.class);
+        assertThat(buffer.pending()).isZero();
+    }
+
+    private MemberWriteBehindBuffer buffer(boolean durable, int maxAttempts) {
+        //주기 flush 는 사실상 끄고 테스트에서 직접 flush
+        MemberWriteBehindBuffer buffer = new MemberWriteBehindBuffer(
+                new MemberJdbcWriter(jdbcTemplate, new MemberWriteVersions()), jdbcTemplate, new NoOpTransactionManager(), eventBus, new SimpleMeterRegistry(),
+                4, 500, TimeUnit.HOURS.toMillis(1), durable, maxAttempts);
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    static class RecordingJdbcTemplate extends JdbcTemplate {
+        static final long MISSING_TEAM = -1L;
+
+        final List<List<Object[]>> batches = new CopyOnWriteArrayList<>();
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        final AtomicInteger failures = new AtomicInteger();
+        final Set<Long> badMembers = new ConcurrentSkipListSet<>();
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs, int[] argTypes) {
+            threads.add(Thread.currentThread().getName());
+            if (failures.getAndUpdate(left -> Math.max(left - 1, 0)) > 0) {
+                throw new DataAccessResourceFailureException("database unavailable");
+            }
+            //batch 안에 한 건이라도 잘못되면 batch 전체가 실패 (트랜잭션 롤백)
+            if (batchArgs.stream().anyMatch(args -> badMembers.contains((Long) args[3]))) {
+                throw new DataIntegrityViolationException("foreign key constraint fails");
+            }
+            batches.add(List.copyOf(batchArgs));
+            int[] counts = new int[batchArgs.size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        }
+
+        //팀 존재 확인 - MISSING_TEAM 만 없는 팀
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            return requiredType.cast(args[0].equals(MISSING_TEAM) ? 0 : 1);
+        }
+
+        List<Object[]> rows() {
+            return batches.stream().flatMap(List::stream).toList();
+        }
+    }
+
+    static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.repository.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.repository.cache.BulkStatementInspector;
+import study.querydsl.repository.cache.MemberWriteVersions;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberChangeEventBusTest {
+
+    MemberChangeEventBus eventBus = new MemberChangeEventBus(new SimpleMeterRegistry(), 8);
+
+    @AfterEach
+    void tearDown() {
+        eventBus.shutdown();
+    }
+
+    @Test
+    public void bulkStatementEvent() throws InterruptedException {
+        BlockingQueue<MemberChangeEvent> received = new LinkedBlockingQueue<>();
+        eventBus.subscribe("test", received::add);
+        BulkStatementInspector inspector = new BulkStatementInspector(new MemberWriteVersions(), eventBus);
+
+        //트랜잭션 밖이면 바로 발행
+        inspector.inspect("update member m1_0 set age=(m1_0.age+?) where m1_0.age<?");
+        inspector.inspect("update member set age=? where member_id=?"); //엔티티 단건 update 는 대상 아님
+
+        MemberChangeEvent event = received.poll(5, TimeUnit.SECONDS);
+        assertThat(event.type()).isEqualTo(MemberChangeEvent.Type.BULK_UPDATE);
+        assertThat(event.entity()).isEqualTo(MemberChangeEvent.Entity.MEMBER);
+        assertThat(event.changedFields()).containsExactly("age");
+        assertThat(event.statement()).isEqualTo("m1_0.age<?");
+        assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+        //별칭이 없어도 기본 키 하나 비교가 아니면 벌크 연산 (native 쿼리)
+        inspector.inspect("update member set team_id=? where team_id=?");
+        inspector.inspect("delete from team where id=?"); //엔티티 단건 delete
+        MemberChangeEvent nativeEvent = received.poll(5, TimeUnit.SECONDS);
+        assertThat(nativeEvent.type()).isEqualTo(MemberChangeEvent.Type.BULK_UPDATE);
+        assertThat(nativeEvent.changedFields()).containsExactly("teamId");
+        assertThat(nativeEvent.statement()).isEqualTo("team_id=?");
+        assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void slowSubscriberOverrun() throws InterruptedException {
+        BlockingQueue<Long> lost = new LinkedBlockingQueue<>();
+        CountDownLatch blocked = new CountDownLatch(1);
+        eventBus.subscribe("slow", new MemberChangeSubscriber() {
+            @Override
+            public void onChange(MemberChangeEvent event) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onOverrun(long count) {
+                lost.add(count);
+            }
+        });
+
+        //버퍼(8)보다 많이 발행하는 동안 구독자는 첫 이벤트에서 멈춰 있음
+        for (int i = 0; i < 20; i++) {
+            eventBus.publish(MemberChangeEvent.bulk(MemberChangeEvent.Type.BULK_DELETE,
+                    MemberChangeEvent.Entity.MEMBER, Set.of(), null));
+        }
+        blocked.countDown();
+
+        assertThat(lost.poll(5, TimeUnit.SECONDS)).isPositive();
+    }
+}
@@ -0,0 +1,242 @@
+package study.querydsl.repository.shard;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberReportRepository;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//샤드 두 개를 H2 인메모리 DB로 대신해서 scatter-gather 검증
+class ShardedMemberRepositoryTest {
+
+    static MemberShards shards;
+    static ParallelQueryExecutor queryExecutor;
+    static ShardedMemberRepository memberRepository;
+    static Long teamAId;
+    static Long teamBId;
+
+    @BeforeAll
+    static void setUp() {
+        List<DataSource> dataSources = List.of(
+                new DriverManagerDataSource("jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1"),
+                new DriverManagerDataSource("jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1"));
+        //MySQL 의 utf8mb4_0900_ai_ci 처럼 대소문자/악센트를 무시하는 비교 (테이블이 생기기 전에만 바꿀 수 있음)
+        dataSources.forEach(dataSource -> new JdbcTemplate(dataSource).execute("SET COLLATION ENGLISH STRENGTH PRIMARY"));
+        shards = new MemberShards(dataSources, Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        queryExecutor = new ParallelQueryExecutor(2);
+        memberRepository = new ShardedMemberRepository(shards, queryExecutor.executor(), Duration.ofMinutes(1));
+
+        //팀은 이름 해시로 고른 샤드, 회원은 팀 전역 id 의 shardFor 샤드 ("teamA"/"teamB" 는 서로 다른 샤드)
+        teamAId = memberRepository.saveTeam("teamA");
+        teamBId = memberRepository.saveTeam("teamB");
+        memberRepository.saveMember("memberA", 10, teamAId);
+        memberRepository.saveMember("memberC", 30, teamAId);
+        memberRepository.saveMember("memberB", 20, teamBId);
+        memberRepository.saveMember("memberD", 40, teamBId);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        queryExecutor.shutdown();
+        shards.close();
+    }
+
+    @Test
+    public void scatterGatherPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition,
+                PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age")));
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).extracting("username").containsExactly("memberD", "memberC", "memberB");
+    }
+
+    @Test
+    public void scatterGatherOffset() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> result = memberRepository.searchSlice(condition,
+                PageRequest.of(1, 3, Sort.by("age")));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("memberD");
+        assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    public void mergeFollowsColumnCollation() {
+        //샤드마다 대소문자를 무시하고 정렬한 앞부분 - 병합도 같은 순서여야 페이지 사이에 빠지거나 겹치는 행이 없음
+        memberRepository.saveMember("alice", 100, teamAId);
+        memberRepository.saveMember("Carol", 101, teamAId);
+        memberRepository.saveMember("Bob", 102, teamBId);
+        memberRepository.saveMember("dave", 103, teamBId);
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(100);
+
+            Page<MemberTeamDto> first = memberRepository.searchPage(condition, PageRequest.of(0, 2, Sort.by("username")));
+            Page<MemberTeamDto> second = memberRepository.searchPage(condition, PageRequest.of(1, 2, Sort.by("username")));
+            Page<MemberTeamDto> descending = memberRepository.searchPage(condition,
+                    PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "username")));
+
+            assertThat(first.getContent()).extracting("username").containsExactly("alice", "Bob");
+            assertThat(second.getContent()).extracting("username").containsExactly("Carol", "dave");
+            assertThat(descending.getContent()).extracting("username").containsExactly("dave", "Carol", "Bob", "alice");
+
+            //팀 이름 라우팅도 대소문자 무시
+            MemberSearchCondition upperTeam = new MemberSearchCondition();
+            upperTeam.setTeamName("TEAMB");
+            upperTeam.setAgeGoe(100);
+            assertThat(memberRepository.search(upperTeam)).extracting("username").containsExactlyInAnyOrder("Bob", "dave");
+        } finally {
+            for (int shard = 0; shard < shards.size(); shard++) {
+                EntityManager em = shards.shard(shard).createEntityManager();
+                try {
+                    em.getTransaction().begin();
+                    em.createQuery("delete from Member m where m.age >= 100").executeUpdate();
+                    em.getTransaction().commit();
+                } finally {
+                    em.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void searchAllPerShardBatch() {
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("teamB");
+        MemberSearchCondition old = new MemberSearchCondition();
+        old.setAgeGoe(30);
+        MemberSearchCondition unknownTeam = new MemberSearchCondition();
+        unknownTeam.setTeamName("teamZ");
+
+        List<List<MemberTeamDto>> result = memberRepository.searchAll(List.of(teamB, old, teamB, unknownTeam), 100);
+
+        assertThat(result).hasSize(4);
+        assertThat(result.get(0)).extracting("username").containsExactlyInAnyOrder("memberB", "memberD");
+        assertThat(result.get(1)).extracting("username").containsExactlyInAnyOrder("memberC", "memberD");
+        assertThat(result.get(2)).isSameAs(result.get(0));
+        assertThat(result.get(3)).isEmpty();
+
+        //샤드마다 앞의 1건씩 가져와도 합친 결과는 전역 id 순 앞의 1건
+        List<List<MemberTeamDto>> capped = memberRepository.searchAll(List.of(old), 1);
+        assertThat(capped.get(0)).hasSize(1);
+        assertThat(capped.get(0).get(0).getMemberId()).isEqualTo(result.get(1).stream()
+                .mapToLong(MemberTeamDto::getMemberId).min().getAsLong());
+    }
+
+    @Test
+    public void routeByTeamName() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(0, 10, Sort.by("age")));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting("username").containsExactly("memberB", "memberD");
+    }
+
+    @Test
+    public void unknownTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+
+        assertThat(memberRepository.search(condition)).isEmpty();
+    }
+
+    @Test
+    public void writesFollowShardFor() {
+        assertThat(shards.shardFor(teamAId)).isNotEqualTo(shards.shardFor(teamBId));
+        for (Long teamId : List.of(teamAId, teamBId)) {
+            EntityManager em = shards.shard(shards.shardFor(teamId)).createEntityManager();
+            try {
+                Team found = em.find(Team.class, shards.localId(teamId));
+                assertThat(found.getMembers()).hasSize(2);
+            } finally {
+                em.close();
+            }
+        }
+        //두 샤드 모두 샤드 안 id 가 같은 값부터 시작하지만 밖으로는 전역 id
+        List<MemberTeamDto> all = memberRepository.search(new MemberSearchCondition());
+        assertThat(all).extracting("memberId").doesNotHaveDuplicates();
+        assertThat(all).allSatisfy(dto -> assertThat(shards.shardFor(dto.getMemberId()))
+                .isEqualTo(shards.shardFor(dto.getTeamId())));
+    }
+
+    @Test
+    public void findByGlobalIds() {
+        List<MemberTeamDto> all = memberRepository.search(new MemberSearchCondition());
+        List<Long> ids = all.stream()
+                .sorted(Comparator.comparing(MemberTeamDto::getAge).reversed())
+                .map(MemberTeamDto::getMemberId)
+                .toList();
+
+        assertThat(memberRepository.findAllByIdsOrdered(ids)).extracting("username")
+                .containsExactly("memberD", "memberC", "memberB", "memberA");
+
+        long from = ids.stream().mapToLong(Long::longValue).min().getAsLong();
+        long to = ids.stream().mapToLong(Long::longValue).max().getAsLong();
+        assertThat(memberRepository.searchByIdRange(new MemberSearchCondition(), from, to + 1)).hasSize(4);
+        assertThat(memberRepository.searchByIdRange(new MemberSearchCondition(), from + 1, to))
+                .extracting("memberId").doesNotContain(from, to);
+    }
+
+    @Test
+    public void reportScanUsesShards() {
+        //원본(기본) DB 에는 member 테이블조차 없음 - id 범위와 범위 조회 모두 샤드에서
+        DataSourceTransactionManager primary = new DataSourceTransactionManager(
+                new DriverManagerDataSource("jdbc:h2:mem:report-primary;DB_CLOSE_DELAY=-1"));
+        //범위 조회가 조회 풀 스레드를 모두 차지해도 샤드 scatter 가 같은 풀을 기다리며 멈추지 않아야 함
+        MemberReportRepository reportRepository = new MemberReportRepository(memberRepository, primary,
+                queryExecutor, 2, 10_000);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(40);
+
+        List<Long> scanned = new ArrayList<>();
+        long rows = reportRepository.scan(condition, 4, true, chunk -> chunk.forEach(dto -> scanned.add(dto.getMemberId())));
+
+        List<Long> expected = memberRepository.search(condition).stream()
+                .map(MemberTeamDto::getMemberId)
+                .sorted()
+                .toList();
+        assertThat(rows).isEqualTo(4);
+        assertThat(scanned).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void renameTeamEvictsRouting() {
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("teamB");
+        assertThat(memberRepository.search(teamB)).hasSize(2); //teamB -> 샤드 캐시
+
+        //다른 샤드의 teamA 를 teamB 로 바꾸면 두 샤드 모두 조회해야 함
+        memberRepository.renameTeam(teamAId, "teamB");
+        try {
+            assertThat(memberRepository.search(teamB)).extracting("username")
+                    .containsExactlyInAnyOrder("memberA", "memberB", "memberC", "memberD");
+        } finally {
+            memberRepository.renameTeam(teamAId, "teamA");
+        }
+    }
+}
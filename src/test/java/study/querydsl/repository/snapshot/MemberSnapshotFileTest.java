@@ -0,0 +1,68 @@
+package study.querydsl.repository.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void writeAndSearchWithPushdown() throws IOException {
+        Path file = dir.resolve("members.msnp");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            MemberSnapshotWriter writer = new MemberSnapshotWriter(channel, 10);
+            writer.team(1L, "teamA");
+            writer.team(2L, "teamB");
+            //행 그룹 10건씩 - 나이/팀이 행 그룹마다 다르게
+            for (int i = 0; i < 100; i++) {
+                Long teamId = i < 50 ? 1L : i < 90 ? 2L : null;
+                writer.append(i + 1, "member" + i, i, teamId);
+            }
+            writer.finish();
+        }
+
+        try (MemberSnapshotReader reader = MemberSnapshotReader.open(file)) {
+            assertThat(reader.rows()).isEqualTo(100);
+            assertThat(reader.rowGroupCount()).isEqualTo(10);
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("teamB");
+            condition.setAgeGoe(60);
+            condition.setAgeLoe(64);
+            List<MemberTeamDto> result = reader.search(condition);
+            assertThat(result).extracting("username")
+                    .containsExactly("member60", "member61", "member62", "member63", "member64");
+            assertThat(result.get(0).getTeamId()).isEqualTo(2L);
+
+            //age 60~64 는 행 그룹 하나에만 있음
+            MemberSnapshotReader.ScanStats stats = reader.scan(condition, dto -> {
+            });
+            assertThat(stats.rowGroupsRead()).isEqualTo(1);
+            assertThat(stats.rowGroupsSkipped()).isEqualTo(9);
+
+            MemberSearchCondition noTeam = new MemberSearchCondition();
+            noTeam.setUsername("member95");
+            List<MemberTeamDto> found = reader.search(noTeam);
+            assertThat(found).hasSize(1);
+            assertThat(found.get(0).getTeamId()).isNull();
+            assertThat(found.get(0).getAge()).isEqualTo(95);
+
+            MemberSearchCondition unknownTeam = new MemberSearchCondition();
+            unknownTeam.setTeamName("teamZ");
+            assertThat(reader.scan(unknownTeam, dto -> {
+            }).rowGroupsRead()).isZero();
+        }
+    }
+}
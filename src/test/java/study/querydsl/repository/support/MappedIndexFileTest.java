@@ -0,0 +1,91 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedIndexFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void bloomFilterRoundTrip() throws IOException {
+        ScalableCountingBloomFilter filter = new ScalableCountingBloomFilter(100, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("user" + i);
+        }
+        Path file = dir.resolve("username.idx");
+        MappedIndexFile.write(file, "member-username-bloom", 1, new MappedIndexFile.Watermark(1000L, 1234L),
+                filter::writeTo);
+
+        Optional<MappedIndexFile.Loaded> loaded = MappedIndexFile.load(file, "member-username-bloom", 1);
+        assertThat(loaded).isPresent();
+        assertThat(loaded.get().watermark()).isEqualTo(new MappedIndexFile.Watermark(1000L, 1234L));
+
+        ScalableCountingBloomFilter restored = ScalableCountingBloomFilter.readFrom(loaded.get().payload());
+        assertThat(restored.layerCount()).isEqualTo(filter.layerCount());
+        assertThat(restored.memoryBytes()).isEqualTo(filter.memoryBytes());
+        assertThat(restored.initialFalsePositiveRate()).isEqualTo(0.01);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(restored.mightContain("user" + i)).isTrue();
+        }
+        //층별 건수까지 복원 -> 오탐률 추정도 같음
+        assertThat(restored.expectedFalsePositiveRate()).isEqualTo(filter.expectedFalsePositiveRate());
+    }
+
+    @Test
+    public void loadedLayersStayMappedUntilWritten() throws IOException {
+        ScalableCountingBloomFilter filter = new ScalableCountingBloomFilter(100, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("user" + i);
+        }
+        Path file = dir.resolve("username.idx");
+        MappedIndexFile.write(file, "member-username-bloom", 1, new MappedIndexFile.Watermark(0L, 0L), filter::writeTo);
+        byte[] saved = Files.readAllBytes(file);
+
+        //조회만 하면 힙으로 복사하지 않음
+        ScalableCountingBloomFilter restored = ScalableCountingBloomFilter.readFrom(
+                MappedIndexFile.load(file, "member-username-bloom", 1).orElseThrow().payload());
+        assertThat(restored.mightContain("user1")).isTrue();
+        assertThat(restored.heapLayerCount()).isZero();
+
+        //추가는 마지막 층만 복사, 파일은 그대로
+        restored.add("late-user");
+        assertThat(restored.heapLayerCount()).isEqualTo(1);
+        assertThat(restored.mightContain("late-user")).isTrue();
+        assertThat(Files.readAllBytes(file)).isEqualTo(saved);
+
+        //매핑된 층과 복사된 층을 섞어서 다시 저장해도 같은 내용
+        Path copy = dir.resolve("username-copy.idx");
+        MappedIndexFile.write(copy, "member-username-bloom", 1, new MappedIndexFile.Watermark(0L, 0L), restored::writeTo);
+        ScalableCountingBloomFilter reloaded = ScalableCountingBloomFilter.readFrom(
+                MappedIndexFile.load(copy, "member-username-bloom", 1).orElseThrow().payload());
+        assertThat(reloaded.mightContain("late-user")).isTrue();
+        for (int i = 0; i < 1000; i++) {
+            assertThat(reloaded.mightContain("user" + i)).isTrue();
+        }
+    }
+
+    @Test
+    public void mismatchedOrBrokenFileIsIgnored() throws IOException {
+        Path file = dir.resolve("username.idx");
+        assertThat(MappedIndexFile.load(file, "member-username-bloom", 1)).isEmpty();
+
+        ScalableCountingBloomFilter filter = new ScalableCountingBloomFilter(100, 0.01);
+        MappedIndexFile.write(file, "member-username-bloom", 1, new MappedIndexFile.Watermark(0L, 0L), filter::writeTo);
+        assertThat(MappedIndexFile.load(file, "member-username-bloom", 2)).isEmpty();
+        assertThat(MappedIndexFile.load(file, "member-age-histogram", 1)).isEmpty();
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+        assertThat(MappedIndexFile.load(file, "member-username-bloom", 1)).isEmpty();
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferTest {
+
+    @Test
+    public void stalledProducerDoesNotOverwriteNewerSequence() {
+        RingBuffer<String> buffer = new RingBuffer<>(4);
+        RingBuffer<String>.Cursor cursor = buffer.cursor();
+
+        //시퀀스 0 을 받고 멈춘 사이 다른 생산자들이 한 바퀴 넘게 발행 (시퀀스 4 가 같은 슬롯)
+        long stalled = buffer.claim();
+        for (int i = 1; i <= 4; i++) {
+            buffer.publish("value" + i);
+        }
+        buffer.write(stalled, "stale");
+
+        AtomicLong lost = new AtomicLong();
+        List<String> received = new ArrayList<>();
+        String value;
+        while ((value = cursor.poll(lost::addAndGet)) != null) {
+            received.add(value);
+        }
+        assertThat(lost).hasValue(1);
+        assertThat(received).containsExactly("value1", "value2", "value3", "value4");
+    }
+
+    @Test
+    public void multiProducerWrapAround() throws Exception {
+        int producers = 8;
+        int perProducer = 20_000;
+        RingBuffer<Long> buffer = new RingBuffer<>(8);
+        RingBuffer<Long>.Cursor cursor = buffer.cursor();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int p = 0; p < producers; p++) {
+                long base = (long) p * perProducer;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        buffer.publish(base + i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //수천 바퀴를 돈 뒤에도 모든 슬롯이 마지막 한 바퀴의 값 -> 뒤처진 커서는 건너뛴 건수를 받고 정확히 capacity 건을 읽음
+        long published = (long) producers * perProducer;
+        AtomicLong lost = new AtomicLong();
+        List<Long> received = new ArrayList<>();
+        Long value;
+        while ((value = cursor.poll(lost::addAndGet)) != null) {
+            received.add(value);
+        }
+        assertThat(received).hasSize(buffer.capacity()).doesNotHaveDuplicates();
+        assertThat(lost).hasValue(published - buffer.capacity());
+        assertThat(cursor.lag()).isZero();
+    }
+}
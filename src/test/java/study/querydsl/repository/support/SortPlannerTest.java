@@ -0,0 +1,81 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+class SortPlannerTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void tiebreakerAdded() {
+        SortPlanner planner = planner(SortPlanner.Policy.REWRITE);
+
+        //정렬 방향을 따라가는 id tiebreaker
+        assertThat(planner.plan(Sort.by(Sort.Direction.DESC, "age")))
+                .containsExactly(member.age.desc(), member.id.desc());
+        assertThat(planner.plan(Sort.unsorted())).containsExactly(member.id.asc());
+        //id 정렬이면 tiebreaker 를 다시 붙이지 않음
+        assertThat(planner.plan(Sort.by(Sort.Direction.DESC, "id"))).containsExactly(member.id.desc());
+    }
+
+    @Test
+    public void secondaryKeyRejected() {
+        SortPlanner planner = planner(SortPlanner.Policy.REWRITE);
+
+        assertThat(planner.plan(Sort.by("age", "username")))
+                .containsExactly(member.age.asc(), member.id.asc());
+        assertThat(rejected("username", "secondary")).isEqualTo(1.0);
+    }
+
+    @Test
+    public void rejectPolicyThrows() {
+        SortPlanner planner = planner(SortPlanner.Policy.REJECT);
+
+        assertThatThrownBy(() -> planner.plan(Sort.by("teamName")))
+                .isInstanceOf(InvalidSortException.class)
+                .hasMessageContaining("teamName");
+        assertThatThrownBy(() -> planner.plan(Sort.by("age", "username")))
+                .isInstanceOf(InvalidSortException.class);
+        assertThatThrownBy(() -> planner.plan(Sort.by("password")))
+                .isInstanceOf(InvalidSortException.class);
+        assertThat(rejected("teamName", "unindexed")).isEqualTo(1.0);
+    }
+
+    @Test
+    public void rewritePolicyDropsUnindexedKey() {
+        SortPlanner planner = planner(SortPlanner.Policy.REWRITE);
+
+        //teamName 은 빼고 그 다음 인덱스 정렬이 선두
+        assertThat(planner.plan(Sort.by(Sort.Order.desc("teamName"), Sort.Order.asc("age"))))
+                .containsExactly(member.age.asc(), member.id.asc());
+        //알 수 없는 프로퍼티 이름은 태그로 남기지 않음
+        assertThat(planner.plan(Sort.by("password"))).containsExactly(member.id.asc());
+        assertThat(rejected("teamName", "unindexed")).isEqualTo(1.0);
+        assertThat(rejected("other", "unknown")).isEqualTo(1.0);
+    }
+
+    private SortPlanner planner(SortPlanner.Policy policy) {
+        return new SortPlanner(member.id,
+                Map.of("id", member.id, "username", member.username, "age", member.age),
+                Set.of("teamId", "teamName"),
+                policy,
+                meterRegistry);
+    }
+
+    private double rejected(String property, String reason) {
+        return meterRegistry.get("member.sort.rejected")
+                .tag("property", property)
+                .tag("reason", reason)
+                .counter()
+                .count();
+    }
+}
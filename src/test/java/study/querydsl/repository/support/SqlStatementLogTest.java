@@ -0,0 +1,44 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementLogTest {
+
+    @Test
+    public void shapeIgnoresLiteralsCommentsAndInListSize() {
+        assertThat(SqlStatementLog.shapeOf("/* select m */ select m.member_id from member m\n  where m.age >= 10 and m.username = 'a'"))
+                .isEqualTo("select m.member_id from member m where m.age >= ? and m.username = ?");
+        assertThat(SqlStatementLog.shapeOf("select * from member where member_id in (?, ?, ?)"))
+                .isEqualTo(SqlStatementLog.shapeOf("select * from member where member_id in (?,?)"));
+        //식별자 안의 숫자는 그대로
+        assertThat(SqlStatementLog.shapeOf("select m1_0.age from member m1_0"))
+                .isEqualTo("select m1_0.age from member m1_0");
+    }
+
+    @Test
+    public void topShapesByTotalTime() {
+        SqlStatementLog sqlLog = new SqlStatementLog(new SimpleMeterRegistry(), 0.0, 1_000, 10, 60_000, 16);
+
+        for (int i = 0; i < 3; i++) {
+            sqlLog.recordExecute("select * from member where member_id = " + i, TimeUnit.MILLISECONDS.toNanos(2), false);
+            sqlLog.recordRows("select * from member where member_id = " + i, 1);
+        }
+        sqlLog.recordExecute("select * from team", TimeUnit.MILLISECONDS.toNanos(10), false);
+        sqlLog.recordExecute("select * from team", TimeUnit.MILLISECONDS.toNanos(1), true);
+
+        List<SqlStatementLog.ShapeSummary> top = sqlLog.top(10);
+        assertThat(top).extracting(SqlStatementLog.ShapeSummary::shape)
+                .containsExactly("select * from team", "select * from member where member_id = ?");
+        assertThat(top.get(0).count()).isEqualTo(2);
+        assertThat(top.get(0).maxMillis()).isEqualTo(10.0);
+        assertThat(top.get(0).errors()).isEqualTo(1);
+        assertThat(top.get(1).count()).isEqualTo(3);
+        assertThat(top.get(1).rows()).isEqualTo(3);
+    }
+}
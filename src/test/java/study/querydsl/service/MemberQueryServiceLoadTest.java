@@ -0,0 +1,87 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//커넥션 풀 2개로 고정하고 동시 요청 8개 - 조회 후 응답 만드는 시간(직렬화 흉내) 동안 동시에 처리되는 요청 수 비교
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=2")
+class MemberQueryServiceLoadTest {
+
+    private static final int POOL_SIZE = 2;
+    private static final int CLIENTS = 8;
+    private static final long RENDER_MILLIS = 300;
+
+    @Autowired
+    MemberQueryService memberQueryService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger rendering = new AtomicInteger();
+    private final AtomicInteger maxRendering = new AtomicInteger();
+
+    @Test
+    public void releasesConnectionBeforeRendering() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        //OSIV 처럼 요청 전체가 커넥션을 잡고 있으면 풀 크기만큼만 동시에 응답을 만듦
+        TransactionTemplate pinned = new TransactionTemplate(transactionManager);
+        pinned.setReadOnly(true);
+        long pinnedStart = System.nanoTime();
+        int pinnedConcurrency = maxConcurrentRenders(() -> pinned.executeWithoutResult(
+                status -> render(memberQueryService.search(condition))));
+        long pinnedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pinnedStart);
+
+        //서비스 트랜잭션이 끝나면 커넥션을 반납하므로 응답 만드는 동안에는 풀과 무관
+        long releasedStart = System.nanoTime();
+        int releasedConcurrency = maxConcurrentRenders(() -> render(memberQueryService.search(condition)));
+        long releasedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - releasedStart);
+
+        System.out.printf("pinned: %d concurrent, %d ms / released: %d concurrent, %d ms%n",
+                pinnedConcurrency, pinnedMillis, releasedConcurrency, releasedMillis);
+        assertThat(pinnedConcurrency).isLessThanOrEqualTo(POOL_SIZE);
+        assertThat(releasedConcurrency).isGreaterThan(POOL_SIZE);
+        assertThat(pinnedMillis).isGreaterThanOrEqualTo(RENDER_MILLIS * CLIENTS / POOL_SIZE);
+    }
+
+    private void render(List<MemberTeamDto> result) {
+        maxRendering.accumulateAndGet(rendering.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(RENDER_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            rendering.decrementAndGet();
+        }
+    }
+
+    private int maxConcurrentRenders(Runnable request) throws Exception {
+        maxRendering.set(0);
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> requests = IntStream.range(0, CLIENTS)
+                    .<Future<?>>mapToObj(i -> clients.submit(request))
+                    .toList();
+            for (Future<?> future : requests) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        return maxRendering.get();
+    }
+}